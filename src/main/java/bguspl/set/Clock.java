@@ -0,0 +1,49 @@
+package bguspl.set;
+
+/**
+ * The source of time of a game, through which the game threads also wait for time to pass. A game played on a
+ * VirtualClock runs as fast as its threads can compute, while a game played on a RealClock runs in wall time.
+ * <p>
+ * A thread waiting on a clock must be woken up through the same clock, and threads that take part in the game must
+ * be announced to the clock (see enter and exit).
+ */
+public interface Clock {
+
+    /**
+     * A deadline that is never reached.
+     */
+    long NEVER = Long.MAX_VALUE;
+
+    /**
+     * @return - the current time in milliseconds.
+     */
+    long millis();
+
+    /**
+     * Blocks the calling thread until the time reaches a deadline, the thread is woken up by unpark or the thread is
+     * interrupted (the caller should check why it returned).
+     *
+     * @param blocker  - the object the thread is waiting on (for diagnostics).
+     * @param deadline - the time (in milliseconds) to wait until (NEVER to wait until woken up).
+     */
+    void park(Object blocker, long deadline);
+
+    /**
+     * Wakes up a thread that waits on the clock (or makes its next wait return immediately).
+     *
+     * @param thread - the thread to wake up (ignored if null).
+     */
+    void unpark(Thread thread);
+
+    /**
+     * Called before starting a thread that takes part in the game (i.e. waits only on this clock).
+     */
+    default void enter() {
+    }
+
+    /**
+     * Called by a thread that takes part in the game when it stops.
+     */
+    default void exit() {
+    }
+}
@@ -36,6 +36,17 @@ public class Config {
      */
     public final int deckSize;
 
+    /**
+     * The minimal number of cards for which sets are searched in parallel (0 to always search sequentially)
+     */
+    public final int parallelSearchThreshold;
+
+    /**
+     * The kind of threads the dealer and the players run on, or SHARED for cooperative tasks on a shared executor
+     * (falls back to PLATFORM if VIRTUAL is not supported)
+     */
+    public final ExecutionMode executionMode;
+
     /**
      * The number of human players in the game.
      */
@@ -77,15 +88,33 @@ public class Config {
     public final long pointFreezeMillis;
 
     /**
-     * The number of milliseconds to delay before removing/placing a card on the table
+     * The number of milliseconds to delay before displaying a card removed from/placed on the table (the table itself
+     * changes immediately)
      */
     public final long tableDelayMillis;
 
+    /**
+     * The number of milliseconds a computer player waits between key presses (at least 1)
+     */
+    public final long computerKeyDelayMillis;
+
     /**
      * The number of milliseconds to pause at the end of the game before closing
      */
     public final long endGamePauseMillies;
 
+    /**
+     * The seed of the game's random choices, i.e. the cards dealt and the computer players' key presses
+     * (if not configured, a new seed is chosen and logged, so that the game can be repeated)
+     */
+    public final long randomSeed;
+
+    /**
+     * What happens to a key press when the player's queue of key presses (featureSize presses) is full: DROP ignores
+     * it, OVERWRITE drops the oldest queued press instead
+     */
+    public final KeyPressOverflow keyPressOverflow;
+
     /**
      * The names of the players to display on the screen
      * Note: if there are more players than names, the remaining players will be called "Player 3", "Player 4", etc.
@@ -155,7 +184,7 @@ public class Config {
      * @param filename - the name of the configuration file.
      * @return - a properties object with the configuration file contents.
      */
-    private static Properties loadProperties(String filename, Logger logger) {
+    static Properties loadProperties(String filename, Logger logger) {
 
         Properties properties = new Properties();
 
@@ -176,6 +205,23 @@ public class Config {
         return properties;
     }
 
+    /**
+     * Computes the number of cards in the deck (i.e. featureSize ^ featureCount).
+     *
+     * @throws IllegalArgumentException - if the deck is too large to be indexed by an int.
+     */
+    private static int deckSize(int featureSize, int featureCount, Logger logger) {
+        int deckSize = 1;
+        try {
+            for (int i = 0; i < featureCount; ++i)
+                deckSize = Math.multiplyExact(deckSize, featureSize);
+        } catch (ArithmeticException e) {
+            logger.severe("invalid cards settings: " + featureSize + "^" + featureCount + " cards is too many cards.");
+            throw new IllegalArgumentException("deck size overflow: " + featureSize + "^" + featureCount, e);
+        }
+        return deckSize;
+    }
+
     public Config(Logger logger, String configFilename) {
         this(logger, loadProperties(configFilename, logger));
     }
@@ -196,7 +242,14 @@ public class Config {
         // cards settings
         featureSize = Integer.parseInt(properties.getProperty("FeatureSize", "3"));
         featureCount = Integer.parseInt(properties.getProperty("FeatureCount", "4"));
-        deckSize = (int) Math.pow(featureSize, featureCount);
+        deckSize = deckSize(featureSize, featureCount, logger);
+        parallelSearchThreshold = Integer.parseInt(properties.getProperty("ParallelSearchThreshold", "256"));
+        ExecutionMode mode = ExecutionMode.valueOf(properties.getProperty("ExecutionMode", "PLATFORM").trim().toUpperCase());
+        if (!mode.isSupported()) {
+            logger.severe("warning: " + mode + " threads are not supported by this JVM. Using platform threads.");
+            mode = ExecutionMode.PLATFORM;
+        }
+        executionMode = mode;
 
         // gameplay settings
         humanPlayers = Integer.parseInt(properties.getProperty("HumanPlayers", "2"));
@@ -205,11 +258,16 @@ public class Config {
 
         hints = Boolean.parseBoolean(properties.getProperty("Hints", "False"));
         turnTimeoutMillis = (long) (Double.parseDouble(properties.getProperty("TurnTimeoutSeconds", "60")) * 1000.0);
-        turnTimeoutWarningMillis = (long) (Double.parseDouble(properties.getProperty("TurnTimeoutWarningSeconds", "60")) * 1000.0);
+        turnTimeoutWarningMillis = (long) (Double.parseDouble(properties.getProperty("TurnTimeoutWarningSeconds", "5")) * 1000.0);
         pointFreezeMillis = (long) (Double.parseDouble(properties.getProperty("PointFreezeSeconds", "1")) * 1000.0);
         penaltyFreezeMillis = (long) (Double.parseDouble(properties.getProperty("PenaltyFreezeSeconds", "3")) * 1000.0);
         tableDelayMillis = (long) (Double.parseDouble(properties.getProperty("TableDelaySeconds", "0.1")) * 1000.0);
+        computerKeyDelayMillis = (long) (Double.parseDouble(properties.getProperty("ComputerKeyDelaySeconds", "0.002")) * 1000.0);
         endGamePauseMillies = (long) (Double.parseDouble(properties.getProperty("EndGamePauseSeconds", "5")) * 1000.0);
+        String seed = properties.getProperty("RandomSeed", "").trim();
+        randomSeed = seed.isEmpty() ? System.nanoTime() : Long.parseLong(seed);
+        logger.info("random seed: " + randomSeed);
+        keyPressOverflow = KeyPressOverflow.valueOf(properties.getProperty("KeyPressOverflow", "DROP").trim().toUpperCase());
 
         // ui settings
         String[] names = properties.getProperty("PlayerNames", "Player 1, Player 2").split(",");
@@ -0,0 +1,110 @@
+package bguspl.set;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * A game entity that runs as a series of short steps on a shared executor instead of on a thread of its own. A step
+ * runs after every wake up (several wake ups may share a step), and never at the same time as another step of the
+ * same task, so the state of the entity is only touched by one thread at a time, as if it had a thread of its own.
+ * <p>
+ * A step must not block: whatever it waits for (a key press, a verdict, a deadline) should wake the task up when it
+ * happens.
+ */
+public class CooperativeTask {
+
+    /**
+     * The name of the task (for the log).
+     */
+    private final String name;
+
+    /**
+     * The step of the task.
+     */
+    private final Runnable step;
+
+    private final ScheduledExecutorService executor;
+
+    private final Logger logger;
+
+    /**
+     * The number of wake ups that were not handled by a step yet (the task is queued or running iff it is positive).
+     */
+    private final AtomicInteger wakeUps = new AtomicInteger();
+
+    private final AtomicBoolean stopped = new AtomicBoolean();
+
+    /**
+     * @param name     - the name of the task.
+     * @param step     - the step to run after wake ups (should be short and must not block).
+     * @param executor - the executor to run the steps on.
+     * @param logger   - the logger to log the lifecycle of the task to.
+     */
+    public CooperativeTask(String name, Runnable step, ScheduledExecutorService executor, Logger logger) {
+        this.name = name;
+        this.step = step;
+        this.executor = executor;
+        this.logger = logger;
+    }
+
+    /**
+     * Starts the task (runs its first step).
+     */
+    public void start() {
+        ThreadLogger.logTaskStart(logger, name);
+        wakeUp();
+    }
+
+    /**
+     * Makes sure the task runs a step after this call (no-op if the task is stopped).
+     */
+    public void wakeUp() {
+        if (!stopped.get() && wakeUps.getAndIncrement() == 0)
+            executor.execute(this::run);
+    }
+
+    /**
+     * Wakes the task up after a delay.
+     *
+     * @param delayMillis - the delay (in milliseconds).
+     * @return - the scheduled wake up (may be used to cancel it).
+     */
+    public ScheduledFuture<?> wakeUpIn(long delayMillis) {
+        return executor.schedule(this::wakeUp, Math.max(0, delayMillis), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the task: no step runs after the current one.
+     */
+    public void stop() {
+        if (stopped.compareAndSet(false, true))
+            ThreadLogger.logTaskStop(logger, name);
+    }
+
+    /**
+     * @return - true iff the task was stopped.
+     */
+    public boolean isStopped() {
+        return stopped.get();
+    }
+
+    private void run() {
+        int handled;
+        do {
+            handled = wakeUps.get();
+            if (!stopped.get()) {
+                try {
+                    step.run();
+                } catch (Throwable e) {
+                    // an error must stop the task too, as the wake ups it leaves would make every later wake up a no-op
+                    logger.severe("task " + name + " failed: " + e);
+                    stop();
+                }
+            }
+        } while (wakeUps.addAndGet(-handled) != 0);
+    }
+}
@@ -1,5 +1,6 @@
 package bguspl.set;
 
+import java.util.SplittableRandom;
 import java.util.logging.Logger;
 
 public class Env {
@@ -9,10 +10,33 @@ public class Env {
     public final UserInterface ui;
     public final Util util;
 
+    /**
+     * The root source of the game's randomness (seeded by config.randomSeed). Each game entity takes its own source
+     * by splitting it while the game is set up, so the same seed gives every entity the same random choices.
+     */
+    public final SplittableRandom random;
+
+    /**
+     * The source of time of the game.
+     */
+    public final Clock clock;
+
+    /**
+     * The timed tasks of the game (e.g. the players' freeze countdowns), run by the game clock.
+     */
+    public final TimingWheel timers;
+
     public Env(Logger logger, Config config, UserInterface ui, Util util) {
+        this(logger, config, ui, util, new RealClock());
+    }
+
+    public Env(Logger logger, Config config, UserInterface ui, Util util, Clock clock) {
         this.logger = logger;
         this.config = config;
         this.ui = ui;
         this.util = util;
+        this.random = new SplittableRandom(config.randomSeed);
+        this.clock = clock;
+        this.timers = new TimingWheel(clock, config.executionMode);
     }
 }
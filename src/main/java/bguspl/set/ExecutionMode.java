@@ -0,0 +1,104 @@
+package bguspl.set;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The kinds of threads the game entities (the dealer, the players and the computer players' key press generators)
+ * run on.
+ */
+public enum ExecutionMode {
+
+    /**
+     * A platform (OS) thread per entity.
+     */
+    PLATFORM,
+
+    /**
+     * A virtual thread per entity, all of them sharing a small pool of carrier threads (requires Java 21 or later).
+     */
+    VIRTUAL,
+
+    /**
+     * A cooperative task per entity, all of them (of all the games in the JVM) sharing one executor with a thread per
+     * core. A task runs a short step whenever it has something to handle (a key press, a claim, a verdict or a timer
+     * tick) instead of waiting for it on a thread of its own (see CooperativeTask).
+     */
+    SHARED;
+
+    /**
+     * The executor of the SHARED mode (created on first use).
+     */
+    private static ScheduledExecutorService sharedExecutor;
+
+    /**
+     * Thread.ofVirtual() and the builder methods, looked up by reflection since the game is built for Java 8 (null if
+     * the running JVM has no virtual threads).
+     */
+    private static final Method OF_VIRTUAL, NAME, UNSTARTED;
+
+    static {
+        Method ofVirtual = null, name = null, unstarted = null;
+        try {
+            Class<?> builder = Class.forName("java.lang.Thread$Builder");
+            ofVirtual = Thread.class.getMethod("ofVirtual");
+            name = builder.getMethod("name", String.class);
+            unstarted = builder.getMethod("unstarted", Runnable.class);
+            // preview builds have the methods but throw when they are used
+            unstarted.invoke(ofVirtual.invoke(null), (Runnable) () -> {
+            });
+        } catch (ReflectiveOperationException | LinkageError e) {
+            ofVirtual = null;
+        }
+        OF_VIRTUAL = ofVirtual;
+        NAME = name;
+        UNSTARTED = unstarted;
+    }
+
+    /**
+     * @return - true iff the running JVM supports this mode.
+     */
+    public boolean isSupported() {
+        return this != VIRTUAL || OF_VIRTUAL != null;
+    }
+
+    /**
+     * @return - the executor the SHARED mode tasks run on: a thread per core, all of them daemon threads.
+     */
+    public static synchronized ScheduledExecutorService sharedExecutor() {
+        if (sharedExecutor == null) {
+            AtomicInteger threads = new AtomicInteger();
+            ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(
+                    Runtime.getRuntime().availableProcessors(), task -> {
+                        Thread thread = new Thread(task, "shared-" + threads.getAndIncrement());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+            // the dealers keep moving their timer ticks, so the cancelled ticks should not pile up in the queue
+            executor.setRemoveOnCancelPolicy(true);
+            sharedExecutor = executor;
+        }
+        return sharedExecutor;
+    }
+
+    /**
+     * Creates an unstarted thread of this kind (a platform thread for SHARED, as its entities do not get threads).
+     *
+     * @param task - the task the thread runs.
+     * @param name - the name of the thread.
+     * @return - the new thread.
+     *
+     * @pre - isSupported()
+     */
+    public Thread newThread(Runnable task, String name) {
+        if (this != VIRTUAL)
+            return new Thread(task, name);
+        try {
+            return (Thread) UNSTARTED.invoke(NAME.invoke(OF_VIRTUAL.invoke(null), name), task);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("cannot create a virtual thread", e);
+        }
+    }
+}
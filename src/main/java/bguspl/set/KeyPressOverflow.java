@@ -0,0 +1,17 @@
+package bguspl.set;
+
+/**
+ * What happens to a key press when the player's queue of key presses is full.
+ */
+public enum KeyPressOverflow {
+
+    /**
+     * The new key press is ignored.
+     */
+    DROP,
+
+    /**
+     * The oldest queued key press is dropped to make room for the new one.
+     */
+    OVERWRITE
+}
@@ -68,13 +68,21 @@ public class Main {
         for (int i = 0; i < players.length; i++)
             players[i] = new Player(env, dealer, table, i, i < env.config.humanPlayers);
 
-        // start the dealer thread
+        // start the dealer thread (or the dealer task, which the main thread waits for instead of a thread)
         ThreadLogger dealerThread = new ThreadLogger(dealer, "dealer", logger);
-        dealerThread.startWithLog();
+        if (config.executionMode == ExecutionMode.SHARED) {
+            dealer.start(ExecutionMode.sharedExecutor());
+        } else {
+            env.clock.enter();
+            dealerThread.startWithLog();
+        }
 
         try {
             // shutdown stuff
-            dealerThread.joinWithLog();
+            if (config.executionMode == ExecutionMode.SHARED)
+                dealer.awaitFinish();
+            else
+                dealerThread.joinWithLog();
             if (!xButtonPressed && config.endGamePauseMillies > 0)
                 Thread.sleep(config.endGamePauseMillies);
         } catch (InterruptedException ignored) {
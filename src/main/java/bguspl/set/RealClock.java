@@ -0,0 +1,28 @@
+package bguspl.set;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A clock that follows the wall time.
+ */
+public class RealClock implements Clock {
+
+    @Override
+    public long millis() {
+        return System.currentTimeMillis();
+    }
+
+    @Override
+    public void park(Object blocker, long deadline) {
+        if (deadline == NEVER)
+            LockSupport.park(blocker);
+        else
+            LockSupport.parkNanos(blocker, TimeUnit.MILLISECONDS.toNanos(deadline - millis()));
+    }
+
+    @Override
+    public void unpark(Thread thread) {
+        LockSupport.unpark(thread);
+    }
+}
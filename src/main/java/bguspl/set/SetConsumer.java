@@ -0,0 +1,16 @@
+package bguspl.set;
+
+/**
+ * A callback for the sets found by Util::forEachSet.
+ */
+@FunctionalInterface
+public interface SetConsumer {
+
+    /**
+     * Called for every set found.
+     *
+     * @param set - the (sorted) card ids of the set. Note: the array is reused between calls, copy it to keep it.
+     * @return - true to continue searching, false to stop.
+     */
+    boolean accept(int[] set);
+}
@@ -0,0 +1,190 @@
+package bguspl.set;
+
+import bguspl.set.ex.Dealer;
+import bguspl.set.ex.Player;
+import bguspl.set.ex.Table;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Logger;
+
+/**
+ * This class runs complete computer-only games without a user interface, on virtual clocks and without logging, and
+ * reports how fast the game engine plays them. In the SHARED execution mode the games run on real clocks, as their
+ * tasks wait on the shared executor rather than on the clock.
+ * Run with: java -cp target/classes bguspl.set.Simulation [games] [concurrent games] [config file]
+ */
+public class Simulation {
+
+    /**
+     * The results of a single game.
+     */
+    private static class GameStats {
+        long claims;
+        long verificationNanos;
+        long maxVerificationNanos;
+        long points;
+        long gameMillis;
+    }
+
+    /**
+     * The main function of the simulation.
+     *
+     * @param args - the number of games (default 10), the number of games to run at the same time (default 1) and the
+     *             configuration file to start from (default: the built-in defaults).
+     */
+    public static void main(String[] args) throws InterruptedException, ExecutionException {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        int concurrency = args.length > 1 ? Integer.parseInt(args[1]) : 1;
+        Properties properties = args.length > 2 ? Config.loadProperties(args[2], silentLogger()) : new Properties();
+
+        // no user interface, artificial delays or logging
+        properties.setProperty("HumanPlayers", "0");
+        properties.setProperty("ComputerPlayers", properties.getProperty("ComputerPlayers", "4"));
+        properties.setProperty("Hints", "False");
+        properties.setProperty("TableDelaySeconds", "0");
+        properties.setProperty("PointFreezeSeconds", "0");
+        properties.setProperty("PenaltyFreezeSeconds", "0");
+        properties.setProperty("RandomSpinMax", "0");
+        properties.setProperty("RandomSpinMin", "0");
+        properties.setProperty("LogLevel", "OFF");
+        String seedProperty = properties.getProperty("RandomSeed", "").trim();
+        long seed = seedProperty.isEmpty() ? System.nanoTime() : Long.parseLong(seedProperty);
+
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+        List<Future<GameStats>> results = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int game = 0; game < games; game++) {
+            Properties gameProperties = new Properties();
+            gameProperties.putAll(properties);
+            gameProperties.setProperty("RandomSeed", Long.toString(seed + game));
+            results.add(executor.submit(() -> play(gameProperties)));
+        }
+
+        GameStats total = new GameStats();
+        for (Future<GameStats> result : results) {
+            GameStats stats = result.get();
+            total.claims += stats.claims;
+            total.verificationNanos += stats.verificationNanos;
+            total.maxVerificationNanos = Math.max(total.maxVerificationNanos, stats.maxVerificationNanos);
+            total.points += stats.points;
+            total.gameMillis += stats.gameMillis;
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        executor.shutdown();
+
+        System.out.printf("games: %d (%d at a time) in %.2f s%n", games, concurrency, seconds);
+        System.out.printf("games/s: %.2f%n", games / seconds);
+        System.out.printf("claims/s: %.0f (%d claims, %d points)%n", total.claims / seconds, total.claims, total.points);
+        System.out.printf("verification latency: mean %.1f us, max %.1f us%n",
+                total.claims == 0 ? 0.0 : total.verificationNanos / 1e3 / total.claims, total.maxVerificationNanos / 1e3);
+        System.out.printf("mean game time: %.1f s (%s)%n", total.gameMillis / 1e3 / games,
+                "SHARED".equalsIgnoreCase(properties.getProperty("ExecutionMode", "").trim()) ? "real" : "virtual");
+    }
+
+    /**
+     * Plays a single game to its end.
+     *
+     * @param properties - the game configuration.
+     * @return - the results of the game.
+     */
+    private static GameStats play(Properties properties) throws InterruptedException {
+        Logger logger = silentLogger();
+        Config config = new Config(logger, properties);
+        Util util = new UtilImpl(config);
+        boolean shared = config.executionMode == ExecutionMode.SHARED;
+        Clock clock = shared ? new RealClock() : new VirtualClock(0);
+        long startMillis = clock.millis();
+        Env env = new Env(logger, config, new HeadlessUserInterface(), util, clock);
+
+        Player[] players = new Player[config.players];
+        Table table = new Table(env);
+        Dealer dealer = new Dealer(env, table, players);
+        for (int i = 0; i < players.length; i++)
+            players[i] = new Player(env, dealer, table, i, false);
+
+        if (shared) {
+            dealer.start(ExecutionMode.sharedExecutor());
+            dealer.awaitFinish();
+        } else {
+            Thread dealerThread = config.executionMode.newThread(dealer, "dealer");
+            clock.enter();
+            dealerThread.start();
+            dealerThread.join();
+        }
+
+        GameStats stats = new GameStats();
+        stats.claims = dealer.claimsChecked();
+        stats.verificationNanos = dealer.verificationNanos();
+        stats.maxVerificationNanos = dealer.maxVerificationNanos();
+        for (Player player : players)
+            stats.points += player.score();
+        stats.gameMillis = clock.millis() - startMillis;
+        return stats;
+    }
+
+    private static Logger silentLogger() {
+        Logger logger = Logger.getAnonymousLogger();
+        logger.setUseParentHandlers(false);
+        return logger;
+    }
+
+    /**
+     * A user interface that displays nothing.
+     */
+    private static class HeadlessUserInterface implements UserInterface {
+
+        @Override
+        public void placeCard(int card, int slot) {
+        }
+
+        @Override
+        public void removeCard(int slot) {
+        }
+
+        @Override
+        public void placeToken(int player, int slot) {
+        }
+
+        @Override
+        public void removeTokens() {
+        }
+
+        @Override
+        public void removeTokens(int slot) {
+        }
+
+        @Override
+        public void removeToken(int player, int slot) {
+        }
+
+        @Override
+        public void setCountdown(long millies, boolean warn) {
+        }
+
+        @Override
+        public void setElapsed(long millies) {
+        }
+
+        @Override
+        public void setFreeze(int player, long millies) {
+        }
+
+        @Override
+        public void setScore(int player, int score) {
+        }
+
+        @Override
+        public void announceWinner(int[] players) {
+        }
+
+        @Override
+        public void dispose() {
+        }
+    }
+}
@@ -31,4 +31,12 @@ public class ThreadLogger extends Thread {
     public static void logStop(Logger logger, String name) {
         logger.info("thread " + name + " terminated.");
     }
+
+    public static void logTaskStart(Logger logger, String name) {
+        logger.info("task " + name + " starting.");
+    }
+
+    public static void logTaskStop(Logger logger, String name) {
+        logger.info("task " + name + " terminated.");
+    }
 }
@@ -0,0 +1,200 @@
+package bguspl.set;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A hashed timing wheel that runs the short timed tasks of a game (e.g. the freeze countdowns of the players) on a
+ * single thread, at millisecond accuracy by the game clock. A task due at time t waits in bucket t % BUCKETS, so
+ * scheduling a task takes constant time and the thread only looks at the buckets of the milliseconds that passed.
+ * <p>
+ * The thread is started when the first task is scheduled, and takes part in the game (see Clock.enter) until the
+ * wheel is shut down. In the SHARED execution mode the wheel gets no thread: the tasks are handed to the shared
+ * executor instead.
+ */
+public class TimingWheel {
+
+    /**
+     * The number of buckets (milliseconds) in a lap around the wheel.
+     */
+    private static final int BUCKETS = 512;
+
+    /**
+     * A scheduled task.
+     */
+    public static final class Timeout {
+
+        /**
+         * The time (in milliseconds, by the game clock) the task is due at.
+         */
+        public final long deadline;
+
+        private final Runnable task;
+
+        private volatile boolean cancelled;
+
+        private Timeout(long deadline, Runnable task) {
+            this.deadline = deadline;
+            this.task = task;
+        }
+
+        /**
+         * Cancels the task (no-op if it already ran).
+         */
+        public void cancel() {
+            cancelled = true;
+        }
+    }
+
+    /**
+     * The game clock.
+     */
+    private final Clock clock;
+
+    /**
+     * The tasks scheduled since the thread last looked (any thread may schedule tasks).
+     */
+    private final ConcurrentLinkedQueue<Timeout> scheduled = new ConcurrentLinkedQueue<>();
+
+    /**
+     * The tasks waiting for their time, by the bucket of their deadline (owned by the wheel thread).
+     */
+    private final List<List<Timeout>> buckets = new ArrayList<>(BUCKETS);
+
+    /**
+     * The number of tasks in the buckets.
+     */
+    private int pending;
+
+    /**
+     * The last time (in milliseconds) the due tasks were run at.
+     */
+    private long tick;
+
+    private volatile Thread thread;
+
+    private volatile boolean shutdown;
+
+    /**
+     * The kind of thread the wheel runs on.
+     */
+    private final ExecutionMode executionMode;
+
+    /**
+     * The executor the tasks are handed to in the SHARED execution mode (null in the other modes).
+     */
+    private final ScheduledExecutorService executor;
+
+    /**
+     * @param clock         - the game clock.
+     * @param executionMode - the kind of thread to run on.
+     */
+    public TimingWheel(Clock clock, ExecutionMode executionMode) {
+        this.clock = clock;
+        this.executionMode = executionMode;
+        this.executor = executionMode == ExecutionMode.SHARED ? ExecutionMode.sharedExecutor() : null;
+        for (int i = 0; i < BUCKETS; i++)
+            buckets.add(new ArrayList<>());
+    }
+
+    /**
+     * Schedules a task.
+     *
+     * @param deadline - the time (in milliseconds, by the game clock) to run the task at.
+     * @param task     - the task (should be short, as it runs on the wheel thread).
+     * @return - the scheduled task (may be used to cancel it).
+     */
+    public Timeout schedule(long deadline, Runnable task) {
+        Timeout timeout = new Timeout(deadline, task);
+        if (executor != null) {
+            executor.schedule(() -> {
+                if (!timeout.cancelled && !shutdown)
+                    task.run();
+            }, Math.max(0, deadline - clock.millis()), TimeUnit.MILLISECONDS);
+            return timeout;
+        }
+        scheduled.add(timeout);
+        if (thread == null)
+            start();
+        clock.unpark(thread);
+        return timeout;
+    }
+
+    /**
+     * Stops the wheel thread (the tasks that are not due yet never run).
+     */
+    public void shutdown() {
+        shutdown = true;
+        clock.unpark(thread);
+    }
+
+    private synchronized void start() {
+        if (thread != null || shutdown)
+            return;
+        Thread wheel = executionMode.newThread(this::run, "timers");
+        wheel.setDaemon(true);
+        clock.enter();
+        thread = wheel;
+        wheel.start();
+    }
+
+    private void run() {
+        tick = clock.millis();
+        while (!shutdown) {
+            Timeout timeout;
+            while ((timeout = scheduled.poll()) != null) {
+                buckets.get(bucket(Math.max(timeout.deadline, tick + 1))).add(timeout);
+                pending++;
+            }
+            runDue(clock.millis());
+            if (scheduled.isEmpty())
+                clock.park(this, nextDeadline());
+        }
+        clock.exit();
+    }
+
+    /**
+     * Runs the tasks that are due at a given time, visiting the buckets of the milliseconds since the last time (at
+     * most one lap around the wheel).
+     */
+    private void runDue(long now) {
+        for (long time = tick + 1; time <= now && time <= tick + BUCKETS; time++) {
+            List<Timeout> bucket = buckets.get(bucket(time));
+            for (int i = 0; i < bucket.size(); ) {
+                Timeout timeout = bucket.get(i);
+                if (timeout.deadline > now) {
+                    i++;
+                    continue;
+                }
+                // remove by moving the last task into its place
+                bucket.set(i, bucket.get(bucket.size() - 1));
+                bucket.remove(bucket.size() - 1);
+                pending--;
+                if (!timeout.cancelled)
+                    timeout.task.run();
+            }
+        }
+        tick = Math.max(tick, now);
+    }
+
+    /**
+     * @return - the earliest deadline within the next lap around the wheel (the end of the lap if no task is due
+     *         during it, NEVER if there are no tasks).
+     */
+    private long nextDeadline() {
+        if (pending == 0)
+            return Clock.NEVER;
+        for (long time = tick + 1; time <= tick + BUCKETS; time++)
+            for (Timeout timeout : buckets.get(bucket(time)))
+                if (timeout.deadline <= time)
+                    return time;
+        return tick + BUCKETS;
+    }
+
+    private static int bucket(long time) {
+        return (int) (time & (BUCKETS - 1));
+    }
+}
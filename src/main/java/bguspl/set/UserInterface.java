@@ -18,6 +18,25 @@ public interface UserInterface {
      */
     void removeCard(int slot);
 
+    /**
+     * Draw the card images of several cards at once (see placeCard method).
+     * @param cards - the card ids.
+     * @param slots - the slot numbers (respectively).
+     */
+    default void placeCards(int[] cards, int[] slots) {
+        for (int i = 0; i < cards.length; i++)
+            placeCard(cards[i], slots[i]);
+    }
+
+    /**
+     * Draw an empty card image in several slots at once (see removeCard method).
+     * @param slots - the slot numbers.
+     */
+    default void removeCards(int[] slots) {
+        for (int slot : slots)
+            removeCard(slot);
+    }
+
     /**
      * Draw a player name text in the specified slot.
      * @param player - the card id.
@@ -1,5 +1,6 @@
 package bguspl.set;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -31,6 +32,30 @@ public interface Util {
      */
     boolean testSet(int[] cards);
 
+    /**
+     * Checks if three cards form a legal set (a fast path of testSet for the common featureSize of 3).
+     *
+     * @param a - the first card id.
+     * @param b - the second card id.
+     * @param c - the third card id.
+     * @return - true iff the three cards form a legal set.
+     */
+    default boolean isSet(int a, int b, int c) {
+        return testSet(new int[]{a, b, c});
+    }
+
+    /**
+     * Returns the card that completes two cards to a legal set. Only sets of 3 cards (featureSize == 3) have a single
+     * completing card, so for any other featureSize this returns -1.
+     *
+     * @param a - the first card id.
+     * @param b - the second card id (different from a).
+     * @return - the id of the card completing the set, or -1 if there is no single such card.
+     */
+    default int thirdCard(int a, int b) {
+        return -1;
+    }
+
     /**
      * Finds and returns up to count sets in the given collection of cards.
      *
@@ -40,6 +65,35 @@ public interface Util {
      */
     List<int[]> findSets(List<Integer> deck, int count);
 
+    /**
+     * Finds the sets in the given cards one by one, without storing them, until there are no more sets or the consumer
+     * asks to stop.
+     *
+     * @param cards    - an array of card ids.
+     * @param length   - the number of cards to search in (the first length entries of the array).
+     * @param consumer - the callback to call for every set found.
+     */
+    default void forEachSet(int[] cards, int length, SetConsumer consumer) {
+        List<Integer> deck = new ArrayList<>(length);
+        for (int i = 0; i < length; i++)
+            deck.add(cards[i]);
+        for (int[] set : findSets(deck, Integer.MAX_VALUE))
+            if (!consumer.accept(set)) return;
+    }
+
+    /**
+     * Counts the sets in the given cards (see forEachSet method).
+     *
+     * @param cards  - an array of card ids.
+     * @param length - the number of cards to search in (the first length entries of the array).
+     * @return - the number of legal sets.
+     */
+    default int countSets(int[] cards, int length) {
+        int[] count = {0};
+        forEachSet(cards, length, set -> ++count[0] > 0);
+        return count[0];
+    }
+
     /**
      * Spin a random number of times (for debugging/testing).
      */
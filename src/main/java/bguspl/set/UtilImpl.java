@@ -3,8 +3,10 @@ package bguspl.set;
 import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.concurrent.ThreadLocalRandom;
-import java.util.stream.IntStream;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * The implementation of the UserInterface interface.
@@ -13,15 +15,80 @@ public class UtilImpl implements Util {
 
     private final Config config;
 
+    /**
+     * The features of all cards, card after card (i.e. feature i of card c is at c * featureCount + i).
+     */
+    private final int[] features;
+
+    /**
+     * Every card packed into a long, 4 bits per feature (feature i in bits 4i..4i+3), or null if the cards do not fit.
+     */
+    private final long[] packed;
+
+    /**
+     * A long with the value 1 in each of its 4 bits groups.
+     */
+    private static final long NIBBLE_ONES = 0x1111111111111111L;
+
+    /**
+     * The largest array length the JVMs allow.
+     */
+    private static final int MAX_ARRAY_LENGTH = Integer.MAX_VALUE - 8;
+
+    /**
+     * The source of the spin lengths of each thread, seeded by the game's seed and the thread's name.
+     */
+    private final ThreadLocal<SplittableRandom> spinRandom;
+
     public UtilImpl(Config config) {
         this.config = config;
+
+        features = new int[cardTableLength(config.deckSize, config.featureCount)];
+        for (int card = 0; card < config.deckSize; ++card)
+            for (int i = config.featureCount - 1, rest = card; i >= 0; --i, rest /= config.featureSize)
+                features[card * config.featureCount + i] = rest % config.featureSize;
+
+        if (config.featureSize <= 16 && config.featureCount * 4 <= Long.SIZE) {
+            packed = new long[cardTableLength(config.deckSize, 1)];
+            for (int card = 0; card < config.deckSize; ++card)
+                for (int i = 0; i < config.featureCount; ++i)
+                    packed[card] |= (long) features[card * config.featureCount + i] << (4 * i);
+        } else packed = null;
+
+        spinRandom = ThreadLocal.withInitial(
+                () -> new SplittableRandom(config.randomSeed ^ Thread.currentThread().getName().hashCode()));
     }
 
-    private void cardToFeatures(int card, int[] features) {
-        for (int i = config.featureCount - 1; i >= 0; --i) {
-            features[i] = card % config.featureSize;
-            card /= config.featureSize;
+    /**
+     * @param deckSize - the number of cards.
+     * @param perCard  - the number of entries per card.
+     * @return - the length of an array with perCard entries per card.
+     * @throws IllegalArgumentException - if the array cannot be indexed by an int (so neither can its entries).
+     */
+    private static int cardTableLength(int deckSize, int perCard) {
+        try {
+            int length = Math.multiplyExact(deckSize, perCard);
+            if (length <= MAX_ARRAY_LENGTH)
+                return length;
+        } catch (ArithmeticException ignored) {
         }
+        throw new IllegalArgumentException("too many cards: " + deckSize + " cards of " + perCard
+                + " entries each do not fit in an array");
+    }
+
+    /**
+     * Computes the packed card that completes two packed cards to a legal set when featureSize is 3, i.e. every
+     * feature is (-a - b) mod 3, for all features at once and without branches.
+     */
+    private static long completion(long a, long b) {
+        long sum = a + b; // every feature is now 0..4
+        sum -= 3 * (((sum + 5 * NIBBLE_ONES) >>> 3) & NIBBLE_ONES); // (a + b) mod 3, adding 5 sets bit 3 iff >= 3
+        long third = 3 * NIBBLE_ONES - sum; // 3..1
+        return third - 3 * (((third + 5 * NIBBLE_ONES) >>> 3) & NIBBLE_ONES); // and 3 becomes 0
+    }
+
+    private void cardToFeatures(int card, int[] features) {
+        System.arraycopy(this.features, card * config.featureCount, features, 0, config.featureCount);
     }
 
     @Override
@@ -34,38 +101,218 @@ public class UtilImpl implements Util {
     @Override
     public int[][] cardsToFeatures(int[] cards) {
         int[][] features = new int[cards.length][config.featureCount];
-        IntStream.range(0, cards.length).forEach(i -> cardToFeatures(cards[i], features[i]));
+        for (int i = 0; i < cards.length; ++i)
+            cardToFeatures(cards[i], features[i]);
         return features;
     }
 
     @Override
     public boolean testSet(int[] cards) {
-        int[][] features = cardsToFeatures(Arrays.copyOf(cards, cards.length));
-        for (int i = 0; i < config.featureCount; ++i) {
-            boolean sameSame = true, butDifferent = true;
+        if (cards.length == 3 && config.featureSize == 3 && packed != null)
+            return isSet(cards[0], cards[1], cards[2]);
 
-            // check if this features is sameSame in all cards
-            for (int j = 1; j < features.length; ++j)
-                if (features[0][i] != features[j][i]) {
-                    sameSame = false;
-                    break;
-                }
+        // the features that are not the same in all cards (as non zero 4 bits groups)
+        long differing = ~0L;
+        if (packed != null && cards.length > 1) {
+            differing = 0;
+            for (int card : cards)
+                differing |= packed[card] ^ packed[cards[0]];
+        }
 
-            // check if this feature is butDifferent in all cards
-            for (int j = 1; j < features.length; ++j)
-                for (int k = j; k < features.length; ++k)
-                    if (features[j - 1][i] == features[k][i]) {
-                        butDifferent = false;
-                        break;
-                    }
+        for (int i = 0; i < config.featureCount; ++i) {
+            if ((differing >>> (4 * i) & 15) == 0) continue; // sameSame
 
+            // the values this feature takes in the cards, as a bitmask
+            long values = 0;
+            for (int card : cards)
+                values |= 1L << features[card * config.featureCount + i];
+
+            boolean sameSame = Long.bitCount(values) == 1;
+            boolean butDifferent = Long.bitCount(values) == cards.length;
             if (sameSame == butDifferent) return false;
         }
         return true;
     }
 
+    @Override
+    public boolean isSet(int a, int b, int c) {
+        if (config.featureSize != 3 || packed == null) return testSet(new int[]{a, b, c});
+        return packed[c] == completion(packed[a], packed[b]);
+    }
+
     @Override
     public List<int[]> findSets(List<Integer> deck, int count) {
+        int[] cards = new int[deck.size()];
+        for (int i = 0; i < cards.length; ++i)
+            cards[i] = deck.get(i);
+
+        LinkedList<int[]> sets = new LinkedList<>();
+        forEachSet(cards, cards.length, set -> {
+            sets.add(set.clone());
+            return sets.size() < count;
+        });
+        return sets;
+    }
+
+    /**
+     * Finds the sets one by one (see Util::forEachSet). At least parallelSearchThreshold cards are searched in
+     * parallel, in which case the order of the sets is not defined (the consumer is still called by one thread at a
+     * time).
+     */
+    @Override
+    public void forEachSet(int[] cards, int length, SetConsumer consumer) {
+        long[] present = config.featureSize == 3 ? presence(cards, length) : null;
+        if (config.parallelSearchThreshold > 0 && length >= config.parallelSearchThreshold) {
+            ForkJoinPool.commonPool().invoke(new SetSearch(cards, length, present, consumer, 0, length - 1));
+            return;
+        }
+
+        int[] set = new int[config.featureSize];
+        for (int i = 0; i < length - 1; ++i)
+            if (!searchRow(cards, length, present, i, set, consumer)) return;
+    }
+
+    /**
+     * Finds the sets whose first card (in the order of the array) is cards[i].
+     *
+     * @param present - the presence bitmap of the cards (see presence), used when featureSize is 3.
+     * @param set     - an array of featureSize entries to hand the sets in.
+     * @return - false iff the consumer asked to stop.
+     */
+    private boolean searchRow(int[] cards, int length, long[] present, int i, int[] set, SetConsumer consumer) {
+        if (config.featureSize != 3)
+            return searchRowCombinatorial(cards, length, i, set, consumer);
+
+        // every pair of cards is completed to a set by exactly one card, so each set {a < b < c} is found
+        // exactly once by looking up the completion of the pair (a, b)
+        for (int j = i + 1; j < length; ++j) {
+            int low = Math.min(cards[i], cards[j]), high = Math.max(cards[i], cards[j]);
+            int third = thirdCard(low, high);
+            if (third > high && (present[third >> 6] & (1L << third)) != 0) {
+                set[0] = low;
+                set[1] = high;
+                set[2] = third;
+                if (!consumer.accept(set)) return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Finds the sets whose first card is cards[i] by testing every combination of featureSize cards that starts
+     * with it (for feature sizes other than 3).
+     */
+    private boolean searchRowCombinatorial(int[] cards, int length, int i, int[] set, SetConsumer consumer) {
+        int r = set.length;
+        if (length - i < r) return true;
+        int[] combination = new int[r];
+
+        for (int k = 0; k < r; ++k)
+            combination[k] = i + k;
+
+        while (combination[r - 1] < length) {
+            for (int k = 0; k < r; ++k)
+                set[k] = cards[combination[k]];
+            Arrays.sort(set);
+            if (testSet(set) && !consumer.accept(set)) return false;
+
+            // generate next combination in lexicographic order (the first card stays)
+            int t = r - 1;
+            while (t > 1 && combination[t] == length - r + t) --t;
+            combination[t]++;
+            for (int k = t + 1; k < r; k++) combination[k] = combination[k - 1] + 1;
+        }
+        return true;
+    }
+
+    /**
+     * @return - a bitmap of the first length cards in the array (bit card is set iff the card is in the array).
+     */
+    private long[] presence(int[] cards, int length) {
+        long[] present = new long[(config.deckSize + 63) >> 6];
+        for (int i = 0; i < length; ++i)
+            present[cards[i] >> 6] |= 1L << cards[i];
+        return present;
+    }
+
+    /**
+     * Searches the rows (see searchRow) i in [from, to) in parallel, splitting the range until it is small enough.
+     * The sets are handed to the consumer by one task at a time, and all tasks stop once the consumer asks to.
+     */
+    private class SetSearch extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private static final int ROWS_PER_TASK = 8;
+
+        private final int[] cards;
+        private final int length;
+        private final long[] present;
+        private final SetConsumer consumer;
+        private final AtomicBoolean stopped;
+        private final int from;
+        private final int to;
+
+        private SetSearch(int[] cards, int length, long[] present, SetConsumer consumer, int from, int to) {
+            this(cards, length, present, consumer, new AtomicBoolean(), from, to);
+        }
+
+        private SetSearch(int[] cards, int length, long[] present, SetConsumer consumer, AtomicBoolean stopped,
+                          int from, int to) {
+            this.cards = cards;
+            this.length = length;
+            this.present = present;
+            this.consumer = consumer;
+            this.stopped = stopped;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (stopped.get()) return;
+            if (to - from > ROWS_PER_TASK) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new SetSearch(cards, length, present, consumer, stopped, from, middle),
+                        new SetSearch(cards, length, present, consumer, stopped, middle, to));
+                return;
+            }
+            int[] set = new int[config.featureSize];
+            SetConsumer serialized = found -> {
+                synchronized (stopped) {
+                    if (stopped.get()) return false;
+                    if (!consumer.accept(found)) stopped.set(true);
+                    return !stopped.get();
+                }
+            };
+            for (int i = from; i < to; ++i)
+                if (stopped.get() || !searchRow(cards, length, present, i, set, serialized)) return;
+        }
+    }
+
+    @Override
+    public int thirdCard(int a, int b) {
+        if (config.featureSize != 3) return -1;
+
+        int third = 0;
+        if (packed != null) {
+            long features = completion(packed[a], packed[b]);
+            for (int i = 0; i < config.featureCount; ++i, features >>>= 4)
+                third = third * 3 + (int) (features & 15);
+            return third;
+        }
+
+        // every feature of the third card is (-a - b) mod 3
+        for (int i = 0, fa = a * config.featureCount, fb = b * config.featureCount; i < config.featureCount; ++i)
+            third = third * 3 + (6 - features[fa + i] - features[fb + i]) % 3;
+        return third;
+    }
+
+    /**
+     * Finds sets by testing every combination of featureSize cards in the deck (the original search, kept as a
+     * reference for the faster searches).
+     */
+    List<int[]> findSetsCombinatorial(List<Integer> deck, int count) {
         LinkedList<int[]> sets = new LinkedList<>();
         int n = deck.size();
         int r = config.featureSize;
@@ -92,7 +339,7 @@ public class UtilImpl implements Util {
 
     public void spin() {
         if (config.randomSpinMax <= 0) return;
-        long cycles = ThreadLocalRandom.current().nextLong(config.randomSpinMin, config.randomSpinMax);
+        long cycles = spinRandom.get().nextLong(config.randomSpinMin, config.randomSpinMax);
         for (int i = 0; i < cycles; ++i)
             Thread.yield();
     }
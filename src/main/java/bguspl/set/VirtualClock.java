@@ -0,0 +1,156 @@
+package bguspl.set;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A clock whose time passes only when every thread that takes part in the game waits on it: the time then jumps to
+ * the earliest deadline, and the threads waiting for it are woken up. Timeouts and freezes therefore cost no wall
+ * time, and a whole game takes as long as its threads take to compute.
+ *
+ * @inv running >= 0
+ * @inv now never decreases.
+ */
+public class VirtualClock implements Clock {
+
+    /**
+     * Guards the state of the clock (a lock rather than a monitor, so that virtual threads waiting for it do not pin
+     * their carrier threads).
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * The current time (changed only while holding the lock).
+     */
+    private volatile long now;
+
+    /**
+     * The number of threads that take part in the game and do not wait on the clock.
+     */
+    private int running;
+
+    /**
+     * The threads that wait on the clock, and the deadlines they wait for.
+     */
+    private final Map<Thread, Long> sleepers = new HashMap<>();
+
+    /**
+     * The threads that were woken up while they did not wait on the clock (so their next wait returns immediately).
+     */
+    private final Set<Thread> permits = new HashSet<>();
+
+    /**
+     * @param start - the time (in milliseconds) the clock starts at.
+     */
+    public VirtualClock(long start) {
+        this.now = start;
+    }
+
+    @Override
+    public long millis() {
+        return now;
+    }
+
+    @Override
+    public void park(Object blocker, long deadline) {
+        Thread thread = Thread.currentThread();
+        lock.lock();
+        try {
+            if (deadline <= now || permits.remove(thread))
+                return;
+            sleepers.put(thread, deadline);
+            running--;
+            advanceIfIdle();
+        } finally {
+            lock.unlock();
+        }
+        while (true) {
+            lock.lock();
+            try {
+                if (!sleepers.containsKey(thread))
+                    return;
+                if (thread.isInterrupted()) {
+                    wake(thread);
+                    return;
+                }
+            } finally {
+                lock.unlock();
+            }
+            LockSupport.park(blocker);
+        }
+    }
+
+    @Override
+    public void unpark(Thread thread) {
+        lock.lock();
+        try {
+            if (thread != null && !wake(thread))
+                permits.add(thread);
+        } finally {
+            lock.unlock();
+        }
+        LockSupport.unpark(thread);
+    }
+
+    @Override
+    public void enter() {
+        lock.lock();
+        try {
+            running++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void exit() {
+        lock.lock();
+        try {
+            permits.remove(Thread.currentThread());
+            running--;
+            advanceIfIdle();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Marks a waiting thread as running.
+     *
+     * @return - true iff the thread waited on the clock.
+     */
+    private boolean wake(Thread thread) {
+        if (sleepers.remove(thread) == null)
+            return false;
+        running++;
+        return true;
+    }
+
+    /**
+     * Moves the time to the earliest deadline and wakes up the threads waiting for it, if no thread is running.
+     */
+    private void advanceIfIdle() {
+        if (running > 0 || sleepers.isEmpty())
+            return;
+        long earliest = NEVER;
+        for (long deadline : sleepers.values())
+            earliest = Math.min(earliest, deadline);
+        if (earliest == NEVER)
+            return;
+
+        now = Math.max(now, earliest);
+        for (Iterator<Map.Entry<Thread, Long>> it = sleepers.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<Thread, Long> sleeper = it.next();
+            if (sleeper.getValue() <= now) {
+                it.remove();
+                running++;
+                LockSupport.unpark(sleeper.getKey());
+            }
+        }
+    }
+}
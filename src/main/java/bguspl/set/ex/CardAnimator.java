@@ -0,0 +1,209 @@
+package bguspl.set.ex;
+
+import bguspl.set.Env;
+import bguspl.set.ExecutionMode;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class displays the cards placed on and removed from the table on its own timeline, one card every
+ * tableDelayMillis, so the table itself can change immediately. The tokens are displayed on the same timeline (without
+ * a delay of their own), so the ui never shows a token on a card before the card itself.
+ */
+class CardAnimator {
+
+    /**
+     * The game environment object.
+     */
+    private final Env env;
+
+    /**
+     * The executor the ui is updated from (null if cards are displayed without a delay): a thread of its own, or the
+     * shared executor in the SHARED execution mode.
+     */
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * True iff the scheduler is a thread of this animator (which it shuts down once the frames are shown).
+     */
+    private final boolean owned;
+
+    /**
+     * A ui update and the time (System.nanoTime) it is due at.
+     */
+    private static final class Frame {
+        final long due;
+        final Runnable update;
+
+        Frame(long due, Runnable update) {
+            this.due = due;
+            this.update = update;
+        }
+    }
+
+    /**
+     * The ui updates that were not shown yet, in the order they are shown (their due times never decrease).
+     */
+    private final ArrayDeque<Frame> frames = new ArrayDeque<>();
+
+    /**
+     * True iff the scheduler was asked to show the next frame.
+     */
+    private boolean showing;
+
+    /**
+     * True iff the ui thread should stop once the frames are shown.
+     */
+    private boolean closing;
+
+    /**
+     * True iff the frames scheduled after shutdown were shown, so the next ones are shown immediately.
+     */
+    private boolean closed;
+
+    /**
+     * The time (System.nanoTime) the last scheduled frame is due at.
+     */
+    private long lastFrame;
+
+    CardAnimator(Env env) {
+        this.env = env;
+        owned = env.config.tableDelayMillis > 0 && env.config.executionMode != ExecutionMode.SHARED;
+        if (owned) {
+            scheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+                Thread thread = new Thread(runnable, "animator");
+                thread.setDaemon(true);
+                return thread;
+            });
+        } else if (env.config.tableDelayMillis > 0)
+            scheduler = ExecutionMode.sharedExecutor();
+        else
+            scheduler = null;
+    }
+
+    /**
+     * Displays a card placed on the table.
+     *
+     * @param card - the card placed.
+     * @param slot - the slot the card was placed in.
+     */
+    void placeCard(int card, int slot) {
+        schedule(() -> env.ui.placeCard(card, slot), true);
+    }
+
+    /**
+     * Displays a card removed from the table.
+     *
+     * @param slot - the slot the card was removed from.
+     */
+    void removeCard(int slot) {
+        schedule(() -> env.ui.removeCard(slot), true);
+    }
+
+    /**
+     * Displays several cards placed on the table at once.
+     *
+     * @param cards - the cards placed.
+     * @param slots - the slots the cards were placed in (respectively).
+     */
+    void placeCards(int[] cards, int[] slots) {
+        int[] cardsCopy = cards.clone(), slotsCopy = slots.clone();
+        schedule(() -> env.ui.placeCards(cardsCopy, slotsCopy), true);
+    }
+
+    /**
+     * Displays several cards removed from the table at once.
+     *
+     * @param slots - the slots the cards were removed from.
+     */
+    void removeCards(int[] slots) {
+        int[] slotsCopy = slots.clone();
+        schedule(() -> env.ui.removeCards(slotsCopy), true);
+    }
+
+    /**
+     * Displays a token placed on the table (after the cards scheduled before it).
+     */
+    void placeToken(int player, int slot) {
+        schedule(() -> env.ui.placeToken(player, slot), false);
+    }
+
+    /**
+     * Displays a token removed from the table (after the cards scheduled before it).
+     */
+    void removeToken(int player, int slot) {
+        schedule(() -> env.ui.removeToken(player, slot), false);
+    }
+
+    /**
+     * Displays the removal of all the tokens (after the cards scheduled before it).
+     */
+    void removeTokens() {
+        schedule(env.ui::removeTokens, false);
+    }
+
+    /**
+     * Stops the ui thread once the frames scheduled so far are shown (the frames scheduled after it stopped are shown
+     * immediately). The shared executor is left running.
+     */
+    synchronized void shutdown() {
+        closing = true;
+        if (!showing)
+            close();
+    }
+
+    /**
+     * Shows the next frames immediately, and stops the ui thread if it is owned.
+     */
+    private void close() {
+        closed = true;
+        if (owned)
+            scheduler.shutdown();
+    }
+
+    /**
+     * Schedules a ui update after the previous one: tableDelayMillis after it for a card, or right after it for a
+     * token.
+     */
+    private synchronized void schedule(Runnable update, boolean card) {
+        if (scheduler == null || closed) {
+            update.run();
+            return;
+        }
+        long now = System.nanoTime();
+        lastFrame = Math.max(now, lastFrame) + (card ? TimeUnit.MILLISECONDS.toNanos(env.config.tableDelayMillis) : 0);
+        frames.add(new Frame(lastFrame, update));
+        if (!showing) {
+            showing = true;
+            scheduler.schedule(this::show, lastFrame - now, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Shows the frames that are due, in order, and schedules itself for the next one.
+     */
+    private void show() {
+        while (true) {
+            Frame frame;
+            synchronized (this) {
+                frame = frames.peek();
+                if (frame == null) {
+                    showing = false;
+                    if (closing)
+                        close();
+                    return;
+                }
+                long wait = frame.due - System.nanoTime();
+                if (wait > 0) {
+                    scheduler.schedule(this::show, wait, TimeUnit.NANOSECONDS);
+                    return;
+                }
+                frames.poll();
+            }
+            frame.update.run();
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package bguspl.set.ex;
+
+/**
+ * This class holds a player's claim that the cards the player placed tokens on form a legal set, as the player saw
+ * the table when making it.
+ *
+ * @inv slots.length == cards.length
+ */
+public final class Claim {
+
+    /**
+     * The dealer's decisions on a claim.
+     */
+    public enum Verdict {
+        /** The cards form a legal set. */
+        POINT,
+        /** The cards do not form a legal set. */
+        PENALTY,
+        /** The table changed since the player saw it, so the claim was dropped. */
+        STALE
+    }
+
+    /**
+     * The id of the claiming player.
+     */
+    public final int player;
+
+    /**
+     * The slots the player placed tokens on.
+     */
+    private final int[] slots;
+
+    /**
+     * The cards in the slots (respectively), as of epoch (Table.NONE for an empty slot).
+     */
+    private final int[] cards;
+
+    /**
+     * The epoch of the table snapshot the player saw.
+     */
+    public final long epoch;
+
+    /**
+     * The time the claim was made at (System.nanoTime), i.e. the time of the key press that completed it.
+     */
+    public final long nanoTime;
+
+    /**
+     * Creates a claim for the cards in the given slots of a table snapshot.
+     *
+     * @param player   - the id of the claiming player.
+     * @param slots    - the slots the player placed tokens on.
+     * @param snapshot - the table snapshot the player saw (taken before the slots were read).
+     */
+    public Claim(int player, int[] slots, Table.Snapshot snapshot) {
+        this(player, slots, snapshot, System.nanoTime());
+    }
+
+    /**
+     * Creates a claim for the cards in the given slots of a table snapshot, made at a given time.
+     *
+     * @param player   - the id of the claiming player.
+     * @param slots    - the slots the player placed tokens on.
+     * @param snapshot - the table snapshot the player saw (taken before the slots were read).
+     * @param nanoTime - the time the claim was made at (System.nanoTime).
+     */
+    public Claim(int player, int[] slots, Table.Snapshot snapshot, long nanoTime) {
+        this.player = player;
+        this.slots = slots.clone();
+        this.cards = new int[slots.length];
+        for (int i = 0; i < slots.length; i++)
+            cards[i] = snapshot.cardAt(slots[i]);
+        this.epoch = snapshot.epoch;
+        this.nanoTime = nanoTime;
+    }
+
+    /**
+     * @return - the number of cards claimed.
+     */
+    public int size() {
+        return slots.length;
+    }
+
+    public int slot(int i) {
+        return slots[i];
+    }
+
+    public int card(int i) {
+        return cards[i];
+    }
+
+    /**
+     * @return - a copy of the claimed slots.
+     */
+    public int[] slots() {
+        return slots.clone();
+    }
+
+    /**
+     * @return - a copy of the claimed cards.
+     */
+    public int[] cards() {
+        return cards.clone();
+    }
+}
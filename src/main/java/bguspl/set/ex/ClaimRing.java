@@ -0,0 +1,98 @@
+package bguspl.set.ex;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A bounded lock-free queue of claims, through which the player threads hand their claims to the dealer thread.
+ * Any number of threads may offer claims, but only a single thread may poll them.
+ * <p>
+ * Every cell has a sequence number that tells whose turn it is: a producer may fill the cell of position pos when
+ * its sequence is pos, and the consumer may empty it when its sequence is pos + 1 (after which the sequence moves
+ * on to the position of the next lap around the ring).
+ *
+ * @inv capacity is a power of 2.
+ * @inv head <= tail <= head + capacity
+ */
+class ClaimRing {
+
+    private final AtomicReferenceArray<Claim> claims;
+
+    private final AtomicLongArray sequences;
+
+    private final int mask;
+
+    /**
+     * The position of the next claim to offer (shared by the producers).
+     */
+    private final AtomicLong tail = new AtomicLong();
+
+    /**
+     * The position of the next claim to poll (owned by the consumer).
+     */
+    private long head;
+
+    /**
+     * @param minCapacity - the least number of claims the ring should hold.
+     */
+    ClaimRing(int minCapacity) {
+        int capacity = 1;
+        while (capacity < minCapacity)
+            capacity <<= 1;
+        claims = new AtomicReferenceArray<>(capacity);
+        sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++)
+            sequences.set(i, i);
+        mask = capacity - 1;
+    }
+
+    /**
+     * @return - the number of claims the ring holds.
+     */
+    int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * Adds a claim to the ring.
+     *
+     * @param claim - the claim to add.
+     * @return - true iff the claim was added (false if the ring is full).
+     */
+    boolean offer(Claim claim) {
+        long pos = tail.get();
+        while (true) {
+            int index = (int) pos & mask;
+            long diff = sequences.get(index) - pos;
+            if (diff == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    claims.set(index, claim);
+                    sequences.set(index, pos + 1);
+                    return true;
+                }
+                pos = tail.get();
+            } else if (diff < 0) {
+                return false;
+            } else {
+                pos = tail.get();
+            }
+        }
+    }
+
+    /**
+     * Removes the oldest claim from the ring (may only be called by the consumer thread).
+     *
+     * @return - the claim removed (null if the ring is empty).
+     */
+    Claim poll() {
+        int index = (int) head & mask;
+        if (sequences.get(index) != head + 1)
+            return null;
+        Claim claim = claims.get(index);
+        claims.set(index, null);
+        sequences.set(index, head + mask + 1);
+        head++;
+        return claim;
+    }
+}
@@ -1,11 +1,10 @@
 package bguspl.set.ex;
 
+import bguspl.set.CooperativeTask;
 import bguspl.set.Env;
 
-import java.util.LinkedList;
-import java.util.List;
-import java.util.concurrent.ArrayBlockingQueue;
-import java.util.stream.Collectors;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.stream.IntStream;
 
 /**
@@ -23,34 +22,78 @@ public class Dealer implements Runnable {
      */
     private final Table table;
     private final Player[] players;
-    public ArrayBlockingQueue<Player> allPlayers;
-    public final Object dLock = new Object(); // as learned it will be object
 
     /**
-     * The list of card ids that are left in the dealer's deck.
+     * The claims the players submitted and the dealer did not check yet.
      */
-    private final List<Integer> deck;
+    private final ClaimRing claims;
+
+    /**
+     * The events the dealer thread waits for.
+     */
+    private final DealerEvents events;
+
+    /**
+     * The intervals between countdown display updates (normally and during the turn timeout warning).
+     */
+    private static final long TICK_MILLIS = 1000;
+    private static final long WARNING_TICK_MILLIS = 10;
+
+    /**
+     * The card ids that are left in the dealer's deck.
+     */
+    private final Deck deck;
+
+    /**
+     * Tracks the sets left in the deck and on the table (null if the sets cannot be tracked for this game).
+     */
+    private final SetTracker setTracker;
 
     /**
      * True iff game should be terminated.
      */
     private volatile boolean terminate;
-    private List<Integer> currentCards; //maybe unneseccary
+
+    /**
+     * True iff the winners were announced (the dealer has nothing left to do).
+     */
+    private volatile boolean finished;
+
+    /**
+     * Released when the game is finished.
+     */
+    private final CountDownLatch finishedLatch = new CountDownLatch(1);
+
+    /**
+     * The cooperative task the dealer runs as (null if it runs on a thread of its own).
+     */
+    private CooperativeTask task;
+    private boolean started;
 
     /**
      * The time when the dealer needs to reshuffle the deck due to turn timeout.
      */
     private long reshuffleTime = Long.MAX_VALUE;
 
+    /**
+     * The number of claims the dealer handed a verdict on, and the total and maximal time (in nanoseconds) from
+     * making a claim until its verdict.
+     */
+    private long claimsChecked;
+    private long verificationNanos;
+    private long maxVerificationNanos;
+
     public Dealer(Env env, Table table, Player[] players) {
         this.env = env;
         this.table = table;
         this.players = players;
-        deck = IntStream.range(0, env.config.deckSize).boxed().collect(Collectors.toList()); //magic number
+        deck = new Deck(env.config.deckSize, env.random.split());
+        setTracker = env.config.featureSize == 3 ? new SetTracker(env.util, env.config.deckSize) : null;
 
-        this.allPlayers = new ArrayBlockingQueue<>(players.length);
-        reshuffleTime = System.currentTimeMillis();
-        currentCards = new LinkedList<Integer>();
+        // a player has at most one claim waiting for a verdict, so the ring never fills up
+        this.claims = new ClaimRing(players.length);
+        this.events = new DealerEvents(env.clock);
+        reshuffleTime = env.clock.millis();
     }
 
     /**
@@ -60,31 +103,106 @@ public class Dealer implements Runnable {
     public void run() {
         env.logger.info("thread " + Thread.currentThread().getName() + " starting.");
         for (Player p : players) {
-            Thread pThread = new Thread(p, "player" + p.getId());
+            Thread pThread = env.config.executionMode.newThread(p, "player" + p.getId());
+            env.clock.enter();
             pThread.start();
         }
-        while (!shouldFinish()) {
+        startTurn();
+        while (!finished)
+            handle(events.next());
+        env.logger.info("thread " + Thread.currentThread().getName() + " terminated.");
+        env.clock.exit();
+    }
+
+    /**
+     * Starts the dealer and the players as cooperative tasks on a shared executor, instead of running the dealer on
+     * the calling thread. The dealer handles its events in a step whenever one is posted or due.
+     *
+     * @param executor - the executor to run the tasks on.
+     */
+    public void start(ScheduledExecutorService executor) {
+        task = new CooperativeTask("dealer", this::step, executor, env.logger);
+        events.runOn(task);
+        for (Player p : players)
+            p.start(executor);
+        task.start();
+    }
+
+    /**
+     * A step of the dealer task: handles the events that are posted or due, without waiting for more.
+     */
+    private void step() {
+        if (!started) {
+            started = true;
+            startTurn();
+        }
+        DealerEvents.Type event;
+        do {
+            event = events.poll();
+            handle(event);
+        } while (event != null && !finished);
+        if (finished)
+            task.stop();
+        else
+            events.wakeUpAtNextDeadline();
+    }
+
+    /**
+     * Handles an event, and ends the turn if the countdown timed out or the game was terminated.
+     *
+     * @param event - the event (null if the dealer was woken up without one).
+     */
+    private void handle(DealerEvents.Type event) {
+        if (finished)
+            return;
+        if (event == DealerEvents.Type.CLAIM) {
+            removeCardsFromTable();
             placeCardsOnTable();
-            timerLoop();
+        } else if (event == DealerEvents.Type.TICK) {
+            updateTimerDisplay(false);
+        }
+        if (terminate || env.clock.millis() >= reshuffleTime) {
+            events.cancelAll();
             updateTimerDisplay(true);
             removeAllCardsFromTable();
+            startTurn();
         }
-        announceWinners();
-        env.logger.info("thread " + Thread.currentThread().getName() + " terminated.");
     }
 
     /**
-     * The inner loop of the dealer thread that runs as long as the countdown did
-     * not time out.
+     * Deals the cards and restarts the countdown for a new turn, or announces the winners if the game should finish.
      */
-    private void timerLoop() {
-        reshuffleTime = env.config.turnTimeoutMillis + System.currentTimeMillis(); //magic number
-        while ((!terminate) && (System.currentTimeMillis() < reshuffleTime)) {
-            sleepUntilWokenOrTimeout();
-            updateTimerDisplay(false);
-            removeCardsFromTable();
-            placeCardsOnTable();
+    private void startTurn() {
+        if (shouldFinish()) {
+            announceWinners();
+            events.cancelAll();
+            env.timers.shutdown();
+            table.shutdown();
+            finished = true;
+            finishedLatch.countDown();
+            return;
         }
+        placeCardsOnTable();
+        updateTimerDisplay(true);
+    }
+
+    /**
+     * Waits until the game is finished (for a dealer started as a task).
+     */
+    public void awaitFinish() throws InterruptedException {
+        finishedLatch.await();
+    }
+
+    /**
+     * Called by a player thread when the player has a claim for the dealer to check. The player gets the verdict
+     * through Player.verdict.
+     *
+     * @param claim - the claim to check.
+     */
+    public void submitClaim(Claim claim) {
+        while (!claims.offer(claim))
+            Thread.yield();
+        events.post(DealerEvents.Type.CLAIM);
     }
 
     /**
@@ -97,7 +215,8 @@ public class Dealer implements Runnable {
         for (int i = players.length - 1; i >= 0; i--) {
             players[i].terminate();
         }
-        env.ui.removeTokens();
+        table.removeAllTokens();
+        events.wakeUp();
     }
 
     /**
@@ -106,7 +225,11 @@ public class Dealer implements Runnable {
      * @return true iff the game should be finished.
      */
     private boolean shouldFinish() {
-        return terminate || env.util.findSets(deck, 1).size() == 0;
+        if (terminate)
+            return true;
+        if (setTracker != null)
+            return !setTracker.hasSet();
+        return !deck.hasSet(env.util);
     }
 
     /**
@@ -114,58 +237,50 @@ public class Dealer implements Runnable {
      */
     private void removeCardsFromTable() {
         // TODO implement
-        while (!allPlayers.isEmpty()) {
-            boolean toCheck = true;
-            Player pRemove = allPlayers.remove();
-            int[] pSlotArray = pRemove.getCardsThatChosen();
-            int[] pCardArray = new int[pSlotArray.length];
+        Claim claim;
+        while ((claim = claims.poll()) != null) {
+            // a claim on slots that changed since the player saw them is dropped (without a penalty)
+            boolean toCheck = claim.size() == env.config.featureSize && table.isCurrent(claim);
+            int[] pCardArray = claim.cards();
             for (int i = 0; i < pCardArray.length && toCheck; i++) {
-                if (table.slotToCard[pSlotArray[i]] != null) {
-                    pCardArray[i] = table.slotToCard[pSlotArray[i]];
-                } else {
+                if (pCardArray[i] == Table.NONE) {
                     toCheck = false;
                 }
             }
-            if (toCheck) {
-                int playerId = pRemove.getId();
-
+            int playerId = claim.player;
+            if (!toCheck) {
+                deliver(claim, Claim.Verdict.STALE);
+            } else {
                 if (env.util.testSet(pCardArray)) {
-                    players[playerId].setPoint(true);
-                    players[playerId].setDealerState(true);
                     for (int i = 0; i < pCardArray.length; i++) {
-                        try {
-                            int currslot = table.cardToSlot[pCardArray[i]];
-                            table.removeCard(currslot);
-                        } catch (NullPointerException ignore) {
-                        }
-
+                        if (setTracker != null)
+                            setTracker.remove(pCardArray[i]);
                     }
+                    table.removeCards(claim.slots());
                     table.playerGotsetToRemove(playerId);
                     players[playerId].resetTokens();
-                    for (int i = 0; i < table.getPlayersChoices().length; i++) {
-                        int currNumOfTok = 0;
-                        for (int j = 0; j < table.getPlayersChoices()[i].length; j++) {
-                            if (table.getPlayersChoices()[i][j]) {
-                                currNumOfTok++;
-
-                            }
-                        }
-                        players[i].setNumOfTok(currNumOfTok);
-
+                    for (int i = 0; i < players.length; i++) {
+                        players[i].setNumOfTok(table.tokenCount(i));
                     }
                     updateTimerDisplay(true);
+                    deliver(claim, Claim.Verdict.POINT);
 
                 } else {
-                    players[playerId].setPenallize(true);
-                    players[playerId].setDealerState(true);
+                    deliver(claim, Claim.Verdict.PENALTY);
                 }
             }
         }
-        for (int i = 0; i < players.length; i++) {
-            synchronized (players[i].pLock) {
-                players[i].pLock.notify();
-            }
-        }
+    }
+
+    /**
+     * Hands the claiming player the verdict on its claim.
+     */
+    private void deliver(Claim claim, Claim.Verdict verdict) {
+        long nanos = System.nanoTime() - claim.nanoTime;
+        claimsChecked++;
+        verificationNanos += nanos;
+        maxVerificationNanos = Math.max(maxVerificationNanos, nanos);
+        players[claim.player].verdict(verdict);
     }
 
     /**
@@ -174,64 +289,53 @@ public class Dealer implements Runnable {
     private void placeCardsOnTable() {
         // TODO implement
         playersBlock();
-        while ((table.countCards() != (env.config.rows) * (env.config.columns)) && (!deck.isEmpty())) { //magic number
-            int cardIndex = shfflingCards();
-            int slotIndex = getNextEmptySlot();
-            if (slotIndex != -1) {
-                table.placeCard(deck.get(cardIndex), slotIndex);
-                deck.remove(cardIndex);
-                if (env.config.hints) {
-                    table.hints();
-                }
-            }
+        int toPlace = Math.min(env.config.tableSize - table.countCards(), deck.size());
+        int[] cards = new int[toPlace];
+        int[] slots = new int[toPlace];
+        for (int i = 0, slot = table.nextFreeSlot(0); i < toPlace; i++, slot = table.nextFreeSlot(slot + 1)) {
+            cards[i] = deck.draw();
+            slots[i] = slot;
         }
-        playersUnBlock();
-        LinkedList<Integer> newCards = new LinkedList<>();
-        for (int i = 0; i < table.slotToCard.length; i++) {
-            if (table.slotToCard[i] != null) {
-                newCards.add(table.slotToCard[i]);
-            }
-        }
-        currentCards = newCards;
-        for (int i = 0; i < players.length; i++) {
-            synchronized (players[i].compLock) {
-                players[i].compLock.notifyAll(); // maybe notify
-            }
+        table.placeCards(cards, slots);
+        if (toPlace > 0 && env.config.hints) {
+            table.hints();
         }
+        playersUnBlock();
 
     }
 
-    /**
-     * Sleep for a fixed amount of time or until the thread is awakened for some
-     * purpose.
-     */
-    private void sleepUntilWokenOrTimeout() {
-        // TODO implement
-        synchronized (dLock) {
-            try {
-                dLock.wait(10);
-
-            } catch (InterruptedException ignore) {
-            }
-
-        }
-    }
-
     /**
      * Reset and/or update the countdown and the countdown display.
      */
     private void updateTimerDisplay(boolean reset) {
         // TODO implement
+        long now = env.clock.millis();
         if (!reset) {
-            if (reshuffleTime - System.currentTimeMillis() <= 5000) {
-                env.ui.setCountdown(reshuffleTime - System.currentTimeMillis(), true);
+            if (reshuffleTime - now <= env.config.turnTimeoutWarningMillis) {
+                env.ui.setCountdown(reshuffleTime - now, true);
             } else {
-                env.ui.setCountdown(reshuffleTime - System.currentTimeMillis(), false);
+                env.ui.setCountdown(reshuffleTime - now, false);
             }
         } else {
-            reshuffleTime = env.config.turnTimeoutMillis + System.currentTimeMillis();
+            reshuffleTime = env.config.turnTimeoutMillis + now;
             env.ui.setCountdown(env.config.turnTimeoutMillis, false);
+            events.schedule(DealerEvents.Type.RESHUFFLE, reshuffleTime);
         }
+        events.schedule(DealerEvents.Type.TICK, nextTick(now));
+    }
+
+    /**
+     * @param now - the current time.
+     * @return - the time the countdown display should be updated next: when the countdown reaches the next whole
+     *         second, or in WARNING_TICK_MILLIS during the turn timeout warning.
+     */
+    private long nextTick(long now) {
+        long left = reshuffleTime - now;
+        long warning = env.config.turnTimeoutWarningMillis;
+        if (left <= warning)
+            return now + WARNING_TICK_MILLIS;
+        long toSecond = left % TICK_MILLIS == 0 ? TICK_MILLIS : left % TICK_MILLIS;
+        return now + Math.min(toSecond, left - warning);
     }
 
     /**
@@ -240,14 +344,12 @@ public class Dealer implements Runnable {
     private void removeAllCardsFromTable() {
         // TODO implement
         playersBlock();
-        env.ui.removeTokens();
-        for (int i = 0; i < env.config.rows * env.config.columns; i++) { //magic number
-            if (table.slotToCard[i] != null) {
-                deck.add(table.slotToCard[i]);
-                table.removeCard(i);
-            }
-        }
         table.removeAllTokens();
+        int[] slots = IntStream.range(0, env.config.tableSize).filter(slot -> table.cardAt(slot) != Table.NONE).toArray();
+        for (int slot : slots) {
+            deck.add(table.cardAt(slot));
+        }
+        table.removeCards(slots);
         for (int i = 0; i < players.length; i++) {
             players[i].resetTokens();
         }
@@ -261,7 +363,7 @@ public class Dealer implements Runnable {
      */
     private void announceWinners() {
         // TODO implement
-        env.ui.removeTokens();
+        table.removeAllTokens();
         int maxScore = 0;
         int numOfWinners = 0;
         for (int i = 0; i < players.length; i++) {
@@ -289,6 +391,27 @@ public class Dealer implements Runnable {
         terminate();
     }
 
+    /**
+     * @return - the number of claims the dealer handed a verdict on.
+     */
+    public long claimsChecked() {
+        return claimsChecked;
+    }
+
+    /**
+     * @return - the total time (in nanoseconds) from making a claim until its verdict, over all claims.
+     */
+    public long verificationNanos() {
+        return verificationNanos;
+    }
+
+    /**
+     * @return - the longest time (in nanoseconds) from making a claim until its verdict.
+     */
+    public long maxVerificationNanos() {
+        return maxVerificationNanos;
+    }
+
     private void playersBlock() {
         for (int i = 0; i < players.length; i++) {
             players[i].setPutCard(false);
@@ -300,21 +423,4 @@ public class Dealer implements Runnable {
             players[i].setPutCard(true);
         }
     }
-
-    private int shfflingCards() {
-        return getRandomNum(0, deck.size()); //
-    }
-
-    private int getRandomNum(int min, int max) { // added func
-        return (int) ((Math.random() * (max - min)) + min);
-    }
-
-    private int getNextEmptySlot() {
-        for (int i = 0; i < table.slotToCard.length; i++) {
-            if (table.slotToCard[i] == null) {
-                return i;
-            }
-        }
-        return -1; // there is no slot available
-    }
 }
@@ -0,0 +1,173 @@
+package bguspl.set.ex;
+
+import bguspl.set.Clock;
+import bguspl.set.CooperativeTask;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * This class holds the events the dealer thread waits for: events posted by other threads (e.g. a player submitting a
+ * claim) and events that are due at a deadline (the countdown display ticks and the reshuffle). The dealer thread
+ * parks until an event is posted or the earliest deadline passes, so an idle table does not wake it up at all.
+ * <p>
+ * When the dealer runs as a cooperative task (see runOn), the task is woken up instead of the thread, and polls the
+ * events without waiting.
+ *
+ * @inv only the dealer thread (or task) calls schedule, cancel, next, poll and wakeUpAtNextDeadline.
+ */
+class DealerEvents {
+
+    /**
+     * The kinds of events the dealer handles.
+     */
+    enum Type {
+        CLAIM,
+        TICK,
+        RESHUFFLE
+    }
+
+    /**
+     * A deadline that is never reached.
+     */
+    static final long NEVER = Clock.NEVER;
+
+    /**
+     * The clock the deadlines are measured by.
+     */
+    private final Clock clock;
+
+    /**
+     * The events posted by other threads, in the order they were posted.
+     */
+    private final ConcurrentLinkedQueue<Type> posted = new ConcurrentLinkedQueue<>();
+
+    /**
+     * The time (in milliseconds) each kind of event is due at (NEVER if it is not scheduled).
+     */
+    private final long[] deadlines = new long[Type.values().length];
+
+    /**
+     * The thread that waits for the events (the dealer thread).
+     */
+    private volatile Thread consumer;
+
+    /**
+     * The task that handles the events (null if the dealer runs on a thread).
+     */
+    private volatile CooperativeTask task;
+
+    /**
+     * The wake up of the task at the earliest deadline, and that deadline (null and NEVER if there is none).
+     */
+    private ScheduledFuture<?> timer;
+    private long timerDeadline = NEVER;
+
+    DealerEvents(Clock clock) {
+        this.clock = clock;
+        cancelAll();
+    }
+
+    /**
+     * Posts an event and wakes up the dealer thread.
+     *
+     * @param type - the event to post.
+     */
+    void post(Type type) {
+        posted.add(type);
+        wakeUp();
+    }
+
+    /**
+     * Wakes up the dealer thread without posting an event (e.g. when the game is terminated).
+     */
+    void wakeUp() {
+        CooperativeTask task = this.task;
+        if (task != null)
+            task.wakeUp();
+        else
+            clock.unpark(consumer);
+    }
+
+    /**
+     * Hands the events to a cooperative task instead of a waiting thread.
+     *
+     * @param task - the task to wake up when an event is posted or due.
+     */
+    void runOn(CooperativeTask task) {
+        this.task = task;
+    }
+
+    /**
+     * Schedules an event, replacing the previous deadline of the same kind.
+     *
+     * @param type     - the event to schedule.
+     * @param deadline - the time (in milliseconds, by the clock) the event is due at.
+     */
+    void schedule(Type type, long deadline) {
+        deadlines[type.ordinal()] = deadline;
+    }
+
+    /**
+     * Cancels all the scheduled events.
+     */
+    void cancelAll() {
+        for (int i = 0; i < deadlines.length; i++)
+            deadlines[i] = NEVER;
+    }
+
+    /**
+     * Waits until an event is posted or a scheduled event is due.
+     *
+     * @return - the next event, or null if the dealer thread was woken up without an event.
+     *
+     * @post - a returned scheduled event is no longer scheduled.
+     */
+    Type next() {
+        consumer = Thread.currentThread();
+        Type type = poll();
+        if (type != null)
+            return type;
+
+        clock.park(this, nextDeadline());
+        return poll();
+    }
+
+    /**
+     * Makes sure the task is woken up when the earliest scheduled event is due (replacing the previous wake up if the
+     * deadline moved). The task should call it after it polled the events it could.
+     */
+    void wakeUpAtNextDeadline() {
+        long deadline = nextDeadline();
+        if (deadline == timerDeadline && timer != null && !timer.isDone())
+            return;
+        if (timer != null)
+            timer.cancel(false);
+        timer = deadline == NEVER ? null : task.wakeUpIn(deadline - clock.millis());
+        timerDeadline = deadline;
+    }
+
+    private long nextDeadline() {
+        long deadline = NEVER;
+        for (long due : deadlines)
+            deadline = Math.min(deadline, due);
+        return deadline;
+    }
+
+    /**
+     * @return - the next due scheduled event or posted event (null if there is none). The due events come first, so a
+     *         stream of posted claims cannot starve the timer and the reshuffle (each of them is due once per schedule).
+     *
+     * @post - a returned scheduled event is no longer scheduled.
+     */
+    Type poll() {
+        long now = clock.millis();
+        for (Type scheduled : Type.values())
+            if (deadlines[scheduled.ordinal()] <= now) {
+                deadlines[scheduled.ordinal()] = NEVER;
+                return scheduled;
+            }
+
+        return posted.poll();
+    }
+}
@@ -0,0 +1,93 @@
+package bguspl.set.ex;
+
+import bguspl.set.Util;
+
+import java.util.SplittableRandom;
+
+/**
+ * This class holds the cards left in the dealer's deck, in no particular order. A card is drawn at random by moving
+ * the last card of the deck into its place, and a card is returned by appending it, so both take constant time.
+ *
+ * @inv 0 <= size <= cards.length
+ */
+public class Deck {
+
+    /**
+     * The cards in the deck (only the first size entries are used).
+     */
+    private final int[] cards;
+
+    /**
+     * The number of cards in the deck.
+     */
+    private int size;
+
+    /**
+     * The source of randomness for drawing cards.
+     */
+    private final SplittableRandom random;
+
+    /**
+     * Creates a full deck.
+     *
+     * @param deckSize - the number of cards in the full deck.
+     * @param random   - the source of randomness for drawing cards.
+     */
+    public Deck(int deckSize, SplittableRandom random) {
+        this.cards = new int[deckSize];
+        for (int card = 0; card < deckSize; card++)
+            cards[card] = card;
+        this.size = deckSize;
+        this.random = random;
+    }
+
+    /**
+     * @return - the number of cards in the deck.
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Draws a random card from the deck.
+     *
+     * @return - the card drawn.
+     *
+     * @pre - !isEmpty()
+     * @post - the card is no longer in the deck.
+     */
+    public int draw() {
+        int index = random.nextInt(size);
+        int card = cards[index];
+        cards[index] = cards[--size];
+        return card;
+    }
+
+    /**
+     * Returns a card to the deck.
+     *
+     * @param card - the card to return.
+     *
+     * @pre - the card is not in the deck.
+     */
+    public void add(int card) {
+        cards[size++] = card;
+    }
+
+    /**
+     * @param util - the utilities object.
+     * @return - true iff the cards in the deck contain a legal set.
+     */
+    public boolean hasSet(Util util) {
+        boolean[] found = {false};
+        util.forEachSet(cards, size, set -> {
+            found[0] = true;
+            return false;
+        });
+        return found[0];
+    }
+}
@@ -0,0 +1,125 @@
+package bguspl.set.ex;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded lock-free queue of key presses (slots, each with the time it was pressed at), through which the input
+ * thread (or the computer player's key press generator) hands the key presses of a player to the player thread.
+ * Offering and polling take no locks and allocate nothing.
+ * <p>
+ * When the ring is full, a new press is either dropped or replaces the oldest press (the producer then moves the head
+ * past the oldest press, competing with the consumer for it, so the head is shared and moved by compare-and-set).
+ *
+ * @inv only a single thread offers and only a single thread polls.
+ * @inv head <= tail <= head + capacity
+ */
+class KeyPressRing {
+
+    /**
+     * Returned by poll when the ring is empty.
+     */
+    static final int NONE = -1;
+
+    private final int[] slots;
+
+    /**
+     * The time each press was made at (System.nanoTime).
+     */
+    private final long[] nanoTimes;
+
+    /**
+     * True iff a new press replaces the oldest press when the ring is full (otherwise the new press is dropped).
+     */
+    private final boolean overwrite;
+
+    /**
+     * The position of the next press to poll (moved by the consumer, and by the producer when it overwrites).
+     */
+    private final AtomicLong head = new AtomicLong();
+
+    /**
+     * The position of the next press to offer (moved by the producer only).
+     */
+    private final AtomicLong tail = new AtomicLong();
+
+    /**
+     * The time the last polled press was made at (owned by the consumer).
+     */
+    private long polledNanoTime;
+
+    /**
+     * @param capacity  - the number of presses the ring holds.
+     * @param overwrite - true iff a new press should replace the oldest press when the ring is full.
+     */
+    KeyPressRing(int capacity, boolean overwrite) {
+        slots = new int[capacity];
+        nanoTimes = new long[capacity];
+        this.overwrite = overwrite;
+    }
+
+    /**
+     * Adds a press to the ring.
+     *
+     * @param slot - the slot that was pressed.
+     * @return - true iff the press was added.
+     */
+    boolean offer(int slot) {
+        long t = tail.get();
+        long h = head.get();
+        if (t - h == slots.length) {
+            if (!overwrite)
+                return false;
+            // drop the oldest press, unless the consumer took it meanwhile
+            head.compareAndSet(h, h + 1);
+        }
+        int index = (int) (t % slots.length);
+        slots[index] = slot;
+        nanoTimes[index] = System.nanoTime();
+        tail.lazySet(t + 1);
+        return true;
+    }
+
+    /**
+     * Takes the oldest press out of the ring.
+     *
+     * @return - the slot that was pressed, or NONE if the ring is empty.
+     *
+     * @post - polledNanoTime() is the time the returned press was made at.
+     */
+    int poll() {
+        while (true) {
+            long h = head.get();
+            if (h == tail.get())
+                return NONE;
+            int index = (int) (h % slots.length);
+            int slot = slots[index];
+            long nanoTime = nanoTimes[index];
+            // if the producer overwrote the press meanwhile, it moved the head first, so the values read are dropped
+            if (head.compareAndSet(h, h + 1)) {
+                polledNanoTime = nanoTime;
+                return slot;
+            }
+        }
+    }
+
+    /**
+     * @return - the time the last polled press was made at (System.nanoTime).
+     */
+    long polledNanoTime() {
+        return polledNanoTime;
+    }
+
+    /**
+     * @return - the number of presses in the ring.
+     */
+    int size() {
+        return (int) (tail.get() - head.get());
+    }
+
+    /**
+     * @return - the number of presses the ring holds.
+     */
+    int capacity() {
+        return slots.length;
+    }
+}
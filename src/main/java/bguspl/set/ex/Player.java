@@ -1,8 +1,15 @@
 package bguspl.set.ex;
 
-import java.util.concurrent.ArrayBlockingQueue;
+import java.util.SplittableRandom;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
+import bguspl.set.Clock;
+import bguspl.set.CooperativeTask;
 import bguspl.set.Env;
+import bguspl.set.KeyPressOverflow;
+import bguspl.set.ThreadLogger;
 
 /**
  * This class manages the players' threads and data
@@ -21,7 +28,6 @@ public class Player implements Runnable {
      * Game entities.
      */
     private final Table table;
-    private int[] cardsThatChosen; // add field - represents the current placed tokens
 
     /**
      * The id of the player (starting from 0).
@@ -31,24 +37,43 @@ public class Player implements Runnable {
     /**
      * The thread representing the current player.
      */
-    private Thread playerThread;
+    private volatile Thread playerThread;
     private Dealer ourDealer;
 
     /**
      * The thread of the AI (computer) player (an additional thread used to generate
      * key presses).
      */
-    private Thread aiThread;
+    private volatile Thread aiThread;
     private volatile boolean dealerIsAvailable;
 
+    /**
+     * The cooperative tasks the player and its key press generator run as (null if they run on threads of their own).
+     */
+    private volatile CooperativeTask task;
+    private volatile ScheduledFuture<?> aiTask;
+
+    /**
+     * True iff the player submitted a claim and did not handle the verdict on it yet.
+     */
+    private boolean awaitingVerdict;
+
+    /**
+     * The source of the AI key presses (split from the game's random source).
+     */
+    private final SplittableRandom random;
+
+    /**
+     * The dealer's verdict on the player's claim (null while there is none to handle).
+     */
+    private volatile Claim.Verdict verdict;
+
     /**
      * True iff the player is human (not a computer player).
      */
     private final boolean human;
-    private volatile boolean setFounded; // added field
-    private volatile boolean penallize; // added field
     // private volatile boolean point; // added field
-    private boolean isFreezed; // added field
+    private volatile boolean isFreezed; // added field
     private boolean putCard; // added field
     private int currNumOfTokens; // addded field
 
@@ -61,9 +86,11 @@ public class Player implements Runnable {
      * The current score of the player.
      */
     private int score;
-    protected ArrayBlockingQueue<Integer> playerTokensQ;
-    public final Object pLock = new Object(); // added field, as learned it will be object
-    public final Object compLock = new Object(); // added field, as learned it will be object
+
+    /**
+     * The key presses the player did not handle yet (at most featureSize of them).
+     */
+    private final KeyPressRing playerTokensQ;
 
     /**
      * The class constructor.
@@ -82,14 +109,12 @@ public class Player implements Runnable {
         this.human = human;
         this.score = 0;
 
-        this.playerTokensQ = new ArrayBlockingQueue<>(env.config.featureSize); // represents the 3 current tokens &
-                                                                               // magic Number
+        this.playerTokensQ = new KeyPressRing(env.config.featureSize,
+                env.config.keyPressOverflow == KeyPressOverflow.OVERWRITE);
         this.ourDealer = dealer;
+        this.random = env.random.split();
         this.dealerIsAvailable = false;
-        penallize = false;
-        setFounded = false;
         // point = false;
-        cardsThatChosen = new int[env.config.featureSize]; // magic number
         putCard = false;
         currNumOfTokens = 0;
     }
@@ -107,62 +132,9 @@ public class Player implements Runnable {
 
         while (!terminate) {
             // TODO implement main player loop
-            if (!(playerTokensQ.isEmpty())) {
-                Integer numOfSpecipicSlot = playerTokensQ.remove();
-                if (table.slotToCard[numOfSpecipicSlot] != null) {
-                    boolean isChosen = table.cardHasChosen(id, numOfSpecipicSlot);
-                    if (isChosen) {
-                        currNumOfTokens--;
-                        table.removeToken(id, numOfSpecipicSlot);
-
-                    } else {
-                        if (currNumOfTokens < env.config.featureSize) {
-                            currNumOfTokens++;
-                            table.placeToken(id, numOfSpecipicSlot);
-                            if (currNumOfTokens == env.config.featureSize) {
-                                int[] currChosenCards = new int[env.config.featureSize];
-                                int i = 0;
-                                boolean[][] playersTokens = table.getPlayersChoices();
-                                for (int j = 0; j < playersTokens[id].length; j++) {
-                                    if (table.cardHasChosen(id, j)) {
-                                        int currCard = j;
-                                        // currCard = table.slotToCard[j];
-
-                                        currChosenCards[i] = currCard; // currChosenSlots
-                                        i++;
-                                    }
-
-                                }
-                                cardsThatChosen = currChosenCards;
-                                ourDealer.allPlayers.add(this);
-                                synchronized (ourDealer.dLock) {
-                                    ourDealer.dLock.notify();
-                                }
-                                synchronized (pLock) {
-                                    try {
-                                        pLock.wait();
-                                    } catch (InterruptedException ignored) {
-
-                                    }
-                                }
-
-                            }
-                        }
-                    }
-
-                }
-            }
-            if (dealerIsAvailable) {
-                if (setFounded) {
-                    point();
-                    setFounded = false;
-                    dealerIsAvailable = false;
-                } else if (penallize) {
-                    penalty();
-                    penallize = false;
-                    dealerIsAvailable = false;
-                }
-            }
+            // the player thread waits on the clock for a key press, a verdict or the termination of the game
+            if (!step())
+                env.clock.park(this, Clock.NEVER);
         }
 
         if (!human)
@@ -171,6 +143,82 @@ public class Player implements Runnable {
             } catch (InterruptedException ignored) {
             }
         env.logger.info("thread " + Thread.currentThread().getName() + " terminated.");
+        env.clock.exit();
+    }
+
+    /**
+     * Starts the player (and its key press generator) as cooperative tasks on a shared executor, instead of running it
+     * on a thread of its own.
+     *
+     * @param executor - the executor to run the tasks on.
+     */
+    public void start(ScheduledExecutorService executor) {
+        task = new CooperativeTask("player" + id, this::runStep, executor, env.logger);
+        task.start();
+        if (!human) {
+            ThreadLogger.logTaskStart(env.logger, "computer-" + id);
+            long delay = Math.max(1, env.config.computerKeyDelayMillis);
+            aiTask = executor.scheduleWithFixedDelay(this::pressRandomKey, delay, delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * A step of the player task: handles the key presses and the verdict the player has, without waiting for more.
+     */
+    private void runStep() {
+        if (terminate) {
+            task.stop();
+            return;
+        }
+        while (step()) {
+        }
+    }
+
+    /**
+     * Handles the verdict on the player's claim if there is one, or else the next key press (unless the player is
+     * frozen or waits for a verdict).
+     *
+     * @return - true iff there was something to handle.
+     */
+    private boolean step() {
+        if (awaitingVerdict) {
+            Claim.Verdict claimVerdict = verdict;
+            if (claimVerdict == null)
+                return false;
+            verdict = null;
+            awaitingVerdict = false;
+            if (claimVerdict == Claim.Verdict.POINT) {
+                point();
+            } else if (claimVerdict == Claim.Verdict.PENALTY) {
+                penalty();
+            }
+            return true;
+        }
+        int numOfSpecipicSlot = isFreezed ? KeyPressRing.NONE : playerTokensQ.poll();
+        if (numOfSpecipicSlot == KeyPressRing.NONE)
+            return false;
+        if (table.cardAt(numOfSpecipicSlot) != Table.NONE) {
+            boolean isChosen = table.cardHasChosen(id, numOfSpecipicSlot);
+            if (isChosen) {
+                currNumOfTokens--;
+                table.removeToken(id, numOfSpecipicSlot);
+
+            } else {
+                if (currNumOfTokens < env.config.featureSize) {
+                    currNumOfTokens++;
+                    table.placeToken(id, numOfSpecipicSlot);
+                    if (currNumOfTokens == env.config.featureSize) {
+                        awaitingVerdict = true;
+                        // the snapshot is taken before the tokens are read, so a slot that changes in between
+                        // makes the claim stale rather than a claim on a card the player never saw
+                        Table.Snapshot seen = table.snapshot();
+                        ourDealer.submitClaim(new Claim(id, table.tokenSlots(id), seen,
+                                playerTokensQ.polledNanoTime()));
+                    }
+                }
+            }
+        }
+        return true;
     }
 
     /**
@@ -181,42 +229,52 @@ public class Player implements Runnable {
      */
     private void createArtificialIntelligence() {
         // note: this is a very, very smart AI (!)
-        aiThread = new Thread(() -> {
+        aiThread = env.config.executionMode.newThread(() -> {
             env.logger.info("thread " + Thread.currentThread().getName() + " starting.");
             while (!terminate) {
                 // TODO implement player key press simulator
-                int slot = getRandomNum(0, env.config.tableSize); // slot will be random from 0-11 (include the edges)
-                if (!dealerIsAvailable) { // magic number above
-                    this.keyPressed(slot);
-                }
-                synchronized (compLock) {
-
-                    try {
-                        compLock.wait(2);
-
-                    } catch (InterruptedException ignore) {
-                    }
+                // a frozen player has no use for key presses, so the generator waits for the end of the freeze
+                if (dealerIsAvailable) {
+                    env.clock.park(this, Clock.NEVER);
+                } else {
+                    pressRandomKey();
+                    env.clock.park(this, env.clock.millis() + Math.max(1, env.config.computerKeyDelayMillis));
                 }
 
             }
             env.logger.info("thread " + Thread.currentThread().getName() + " terminated.");
+            env.clock.exit();
         }, "computer-" + id);
+        env.clock.enter();
         aiThread.start();
     }
 
+    /**
+     * Presses a random key (unless the player waits for the end of a freeze).
+     */
+    private void pressRandomKey() {
+        int slot = getRandomNum(0, env.config.tableSize); // slot will be random from 0-11 (include the edges)
+        if (!dealerIsAvailable) { // magic number above
+            this.keyPressed(slot);
+        }
+    }
+
     /**
      * Called when the game should be terminated.
      */
     public void terminate() { // Bonus 2
         // TODO implement
         terminate = true;
-        synchronized (pLock) {
-            pLock.notifyAll();
+        if (task != null) {
+            ScheduledFuture<?> ai = aiTask;
+            if (ai != null && ai.cancel(false))
+                ThreadLogger.logTaskStop(env.logger, "computer-" + id);
+            task.wakeUp();
+            return;
         }
+        env.clock.unpark(playerThread);
         playerThread.interrupt();
-        synchronized (compLock) {
-            compLock.notifyAll();
-        }
+        env.clock.unpark(aiThread);
         try {
             playerThread.join();
         } catch (Exception e) {
@@ -225,7 +283,8 @@ public class Player implements Runnable {
     }
 
     /**
-     * This method is called when a key is pressed.
+     * This method is called when a key is pressed. A key pressed while the cards are dealt or while the player is
+     * frozen is dropped (the keys pressed before a freeze stay queued until it ends).
      *
      * @param slot - the slot corresponding to the key pressed.
      */
@@ -233,8 +292,8 @@ public class Player implements Runnable {
         // TODO implement
         if (putCard) {
             if (!isFreezed) {
-                if (playerTokensQ.size() != 3) {
-                    playerTokensQ.add(slot);
+                if (playerTokensQ.offer(slot)) {
+                    wakeUp();
                 }
             }
         }
@@ -253,20 +312,8 @@ public class Player implements Runnable {
         int ignored = table.countCards(); // this part is just for demonstration in the unit tests
         env.ui.setScore(id, ++score); // add 1 point
 
-        long afterFreeze = System.currentTimeMillis() + env.config.pointFreezeMillis; // magic number
-        while (afterFreeze - System.currentTimeMillis() > 900) {// magic number
-            env.ui.setFreeze(id, afterFreeze - System.currentTimeMillis());// magic number
-            try {
-                synchronized (this) {
-                    System.out.println("went to sleep for a point!");
-                    wait(900);
-                }
-            } catch (InterruptedException ignore) {
-            }
-        }
-        env.ui.setFreeze(id, 0);
-        isFreezed = false;
-
+        env.logger.fine("player " + id + " frozen for a point!");
+        freeze(env.clock.millis() + env.config.pointFreezeMillis);
     }
 
     /**
@@ -274,20 +321,38 @@ public class Player implements Runnable {
      */
     public void penalty() {
         // TODO implement
-        long penaltyTime = System.currentTimeMillis() + env.config.penaltyFreezeMillis;// magic number
+        env.logger.fine("player " + id + " frozen for a penalty :(");
+        freeze(env.clock.millis() + env.config.penaltyFreezeMillis);
+    }
+
+    /**
+     * Freezes the player until a given time. The countdown is shown on the game's timing wheel. Until the freeze ends,
+     * the keys pressed are dropped (see keyPressed) and the player thread leaves the keys queued before the freeze
+     * for later (but is not blocked).
+     *
+     * @param until - the time (by the game clock) the freeze ends at.
+     */
+    private void freeze(long until) {
         isFreezed = true;
-        while (penaltyTime - System.currentTimeMillis() > 900) {// magic number
-            env.ui.setFreeze(id, penaltyTime - System.currentTimeMillis());
-            try {
-                System.out.println("went to sleep for a penalty :(");
-                synchronized (this) {
-                    wait(900);
-                }
-            } catch (InterruptedException ignore) {
-            }
+        freezeTick(until);
+    }
+
+    /**
+     * Shows the time left for the freeze, and schedules the next update for when the time left reaches a whole second
+     * (or the end of the freeze for when it ends).
+     */
+    private void freezeTick(long until) {
+        long left = until - env.clock.millis();
+        if (left <= 0 || terminate) {
+            env.ui.setFreeze(id, 0);
+            isFreezed = false;
+            dealerIsAvailable = false;
+            wakeUp();
+            env.clock.unpark(aiThread);
+            return;
         }
-        env.ui.setFreeze(id, 0);
-        isFreezed = false;
+        env.ui.setFreeze(id, left);
+        env.timers.schedule(until - (left - 1) / 1000 * 1000, () -> freezeTick(until));
     }
 
     public int score() {
@@ -299,20 +364,28 @@ public class Player implements Runnable {
         return id;
     }
 
-    public int[] getCardsThatChosen() {
-        return cardsThatChosen;
-    }
-
-    public void setPoint(boolean state) {
-        this.setFounded = state;
-    }
-
-    public void setDealerState(boolean state) {
-        this.dealerIsAvailable = state;
+    /**
+     * Called by the dealer thread to hand the player the verdict on its claim.
+     *
+     * @param verdict - the verdict.
+     */
+    public void verdict(Claim.Verdict verdict) {
+        if (verdict != Claim.Verdict.STALE)
+            dealerIsAvailable = true;
+        this.verdict = verdict;
+        wakeUp();
     }
 
-    public void setPenallize(boolean state) {
-        this.penallize = true;
+    /**
+     * Wakes up the player thread (or task) to handle a key press, a verdict, the end of a freeze or the termination
+     * of the game.
+     */
+    private void wakeUp() {
+        CooperativeTask task = this.task;
+        if (task != null)
+            task.wakeUp();
+        else
+            env.clock.unpark(playerThread);
     }
 
     public void setPutCard(boolean state) {
@@ -332,7 +405,7 @@ public class Player implements Runnable {
     }
 
     private int getRandomNum(int min, int max) { // added func
-        return (int) ((Math.random() * (max - min)) + min);
+        return random.nextInt(min, max);
     }
 
 }
@@ -0,0 +1,138 @@
+package bguspl.set.ex;
+
+import bguspl.set.Util;
+
+/**
+ * This class tracks the legal sets that can still be formed from the cards left in the game (i.e. the cards in the
+ * deck and on the table), for games in which every pair of cards is completed by a single card (featureSize == 3).
+ *
+ * @inv setCount == sum(setsPerCard) / 3
+ */
+public class SetTracker {
+
+    /**
+     * The utilities object (used for finding the card that completes a pair to a set).
+     */
+    private final Util util;
+
+    /**
+     * The cards left in the game, in no particular order (only the first size entries are used).
+     */
+    private final int[] cards;
+
+    /**
+     * Mapping between a card and its index in cards (-1 if the card is not in the game).
+     */
+    private final int[] cardToIndex;
+
+    /**
+     * The number of sets each card left in the game participates in.
+     */
+    private final int[] setsPerCard;
+
+    /**
+     * The number of cards left in the game.
+     */
+    private int size;
+
+    /**
+     * The number of sets that can be formed from the cards left in the game.
+     */
+    private long setCount;
+
+    /**
+     * Creates a tracker for a game that starts with a full deck.
+     *
+     * @param util     - the utilities object.
+     * @param deckSize - the number of cards in the full deck.
+     */
+    public SetTracker(Util util, int deckSize) {
+        this.util = util;
+        cards = new int[deckSize];
+        cardToIndex = new int[deckSize];
+        setsPerCard = new int[deckSize];
+        for (int card = 0; card < deckSize; card++) {
+            cards[card] = card;
+            cardToIndex[card] = card;
+            // in a full deck, the other cards are paired up by the cards that complete them with this card
+            setsPerCard[card] = (deckSize - 1) / 2;
+        }
+        size = deckSize;
+        setCount = (long) deckSize * (deckSize - 1) / 6;
+    }
+
+    /**
+     * @return - true iff a legal set can still be formed from the cards left in the game.
+     */
+    public boolean hasSet() {
+        return setCount > 0;
+    }
+
+    /**
+     * @return - the number of legal sets that can be formed from the cards left in the game.
+     */
+    public long setCount() {
+        return setCount;
+    }
+
+    /**
+     * @param card - the card to check.
+     * @return - the number of legal sets the card participates in (0 if the card is not in the game).
+     */
+    public int setCount(int card) {
+        return setsPerCard[card];
+    }
+
+    /**
+     * Removes a card from the game (e.g. when it was part of a set that was collected by a player).
+     *
+     * @param card - the card to remove.
+     *
+     * @post - the sets that include the card are no longer counted.
+     */
+    public void remove(int card) {
+        int index = cardToIndex[card];
+        if (index < 0)
+            return;
+        cards[index] = cards[--size];
+        cardToIndex[cards[index]] = index;
+        cardToIndex[card] = -1;
+        updateSets(card, -1);
+    }
+
+    /**
+     * Adds a card back to the game.
+     *
+     * @param card - the card to add.
+     *
+     * @post - the sets that include the card are counted.
+     */
+    public void add(int card) {
+        if (cardToIndex[card] >= 0)
+            return;
+        updateSets(card, 1);
+        cards[size] = card;
+        cardToIndex[card] = size++;
+    }
+
+    /**
+     * Updates the counters of the sets a card (which is not in cards) forms with the cards left in the game.
+     *
+     * @param card  - the card.
+     * @param delta - 1 if the card is added, -1 if it is removed.
+     */
+    private void updateSets(int card, int delta) {
+        int sets = 0;
+        for (int i = 0; i < size; i++) {
+            int other = cards[i];
+            int third = util.thirdCard(card, other);
+            if (cardToIndex[third] >= 0 && other < third) {
+                setsPerCard[other] += delta;
+                setsPerCard[third] += delta;
+                sets++;
+            }
+        }
+        setsPerCard[card] = delta > 0 ? sets : 0;
+        setCount += (long) delta * sets;
+    }
+}
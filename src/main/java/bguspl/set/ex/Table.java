@@ -3,14 +3,18 @@ package bguspl.set.ex;
 import bguspl.set.Env;
 
 import java.util.Arrays;
+import java.util.LinkedList;
 import java.util.List;
-import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.StampedLock;
 import java.util.stream.Collectors;
 
 /**
  * This class contains the data that is visible to the player.
+ * Cards are placed and removed by the dealer thread only, under the lock of their slot, while players read the
+ * slots optimistically (i.e. without blocking the dealer).
  *
- * @inv slotToCard[x] == y iff cardToSlot[y] == x
+ * @inv slotToCard[x] == y iff cardToSlot[y] == x (for x, y != NONE)
  */
 public class Table {
 
@@ -20,14 +24,83 @@ public class Table {
     private final Env env;
 
     /**
-     * Mapping between a slot and the card placed in it (null if none).
+     * The value of an empty entry in slotToCard and cardToSlot.
      */
-    protected final Integer[] slotToCard; // card per slot (if any)
+    public static final int NONE = -1;
+
+    /**
+     * Mapping between a slot and the card placed in it (NONE if none).
+     */
+    protected final int[] slotToCard; // card per slot (if any)
+    /**
+     * Mapping between a card and the slot it is in (NONE if none).
+     */
+    protected final int[] cardToSlot; // slot per card (if any)
+
+    /**
+     * Displays the cards placed and removed (with a delay, without holding back the changes of the table).
+     */
+    private final CardAnimator animator;
+
+    /**
+     * The number of cards currently on the table.
+     */
+    private int cardCount;
+
+    /**
+     * The empty slots on the table, a bit per slot.
+     */
+    private final long[] freeSlots;
+
+    /**
+     * The number of changes made to the table so far (every card placed or removed increments it).
+     */
+    private long epoch;
+
+    /**
+     * The epoch in which each slot was last changed.
+     */
+    private final long[] slotEpochs;
+
+    /**
+     * The current snapshot of the table.
+     */
+    private volatile Snapshot snapshot;
+
     /**
-     * Mapping between a card and the slot it is in (null if none).
+     * The maximal number of locks guarding the slots.
      */
-    protected final Integer[] cardToSlot; // slot per card (if any)
-    private boolean[][] playersChoices; // added field - represent slots choosed by player
+    static final int MAX_SLOT_LOCKS = 64;
+
+    /**
+     * The locks guarding the mappings (slot s and the card in it are guarded by slotLocks[s % slotLocks.length]).
+     */
+    private final StampedLock[] slotLocks;
+
+    /**
+     * The tokens of the players, a bit per slot (slot s of player p is bit s % 64 of word p * wordsPerPlayer + s / 64).
+     */
+    private final AtomicLongArray tokens;
+
+    /**
+     * The number of words in tokens for each player.
+     */
+    private final int wordsPerPlayer;
+
+    /**
+     * True iff the sets on the table are indexed (i.e. every pair of cards is completed by a single card).
+     */
+    private final boolean indexed;
+
+    /**
+     * The number of sets on the table that include the card in each slot.
+     */
+    private final int[] setsPerSlot;
+
+    /**
+     * The number of sets currently on the table.
+     */
+    private int setCount;
 
     // protected Integer numOfPlayers;
 
@@ -35,17 +108,48 @@ public class Table {
      * Constructor for testing.
      *
      * @param env        - the game envir onment objects.
-     * @param slotToCard - mapping between a slot and the card placed in it (null if
+     * @param slotToCard - mapping between a slot and the card placed in it (NONE if
      *                   none).
-     * @param cardToSlot - mapping between a card and the slot it is in (null if
+     * @param cardToSlot - mapping between a card and the slot it is in (NONE if
      *                   none).
      */
-    public Table(Env env, Integer[] slotToCard, Integer[] cardToSlot) {
+    public Table(Env env, int[] slotToCard, int[] cardToSlot) {
+
+        this(env, slotToCard, cardToSlot, MAX_SLOT_LOCKS);
+    }
+
+    /**
+     * Constructor with a limit on the number of locks guarding the slots (1 guards the whole table with a single lock).
+     *
+     * @param env          - the game environment objects.
+     * @param slotToCard   - mapping between a slot and the card placed in it (NONE if none).
+     * @param cardToSlot   - mapping between a card and the slot it is in (NONE if none).
+     * @param maxSlotLocks - the maximal number of locks guarding the slots.
+     */
+    Table(Env env, int[] slotToCard, int[] cardToSlot, int maxSlotLocks) {
 
         this.env = env;
         this.slotToCard = slotToCard;
         this.cardToSlot = cardToSlot;
-        this.playersChoices = new boolean[env.config.players][env.config.rows * env.config.columns]; // magic number
+        this.wordsPerPlayer = (slotToCard.length + Long.SIZE - 1) / Long.SIZE;
+        this.tokens = new AtomicLongArray(env.config.players * wordsPerPlayer);
+        this.indexed = env.config.featureSize == 3;
+        this.setsPerSlot = new int[slotToCard.length];
+        this.slotLocks = new StampedLock[Math.max(1, Math.min(slotToCard.length, maxSlotLocks))];
+        Arrays.setAll(slotLocks, i -> new StampedLock());
+        this.animator = new CardAnimator(env);
+        this.slotEpochs = new long[slotToCard.length];
+        this.snapshot = new Snapshot(epoch, slotToCard.clone());
+        this.freeSlots = new long[(slotToCard.length + Long.SIZE - 1) / Long.SIZE];
+        for (int slot = 0; slot < slotToCard.length; slot++)
+            if (slotToCard[slot] == NONE)
+                freeSlots[slot >> 6] |= 1L << slot;
+            else
+                cardCount++;
+        // index each set of the prefilled cards once, by the first slot in it
+        for (int slot = 0; slot < slotToCard.length; slot++)
+            if (slotToCard[slot] != NONE)
+                indexSets(slot, 1, slot + 1);
         // numOfPlayers = env.config.players; =----------------------- maybe need to
         
 
@@ -58,7 +162,24 @@ public class Table {
      */
     public Table(Env env) {
 
-        this(env, new Integer[env.config.tableSize], new Integer[env.config.deckSize]);
+        this(env, MAX_SLOT_LOCKS);
+    }
+
+    /**
+     * Constructor for an empty table with a limit on the number of locks guarding the slots.
+     *
+     * @param env          - the game environment objects.
+     * @param maxSlotLocks - the maximal number of locks guarding the slots.
+     */
+    Table(Env env, int maxSlotLocks) {
+
+        this(env, emptyMapping(env.config.tableSize), emptyMapping(env.config.deckSize), maxSlotLocks);
+    }
+
+    private static int[] emptyMapping(int size) {
+        int[] mapping = new int[size];
+        Arrays.fill(mapping, NONE);
+        return mapping;
     }
 
     /**
@@ -66,28 +187,173 @@ public class Table {
      * table.
      */
     public void hints() {
-        List<Integer> deck = Arrays.stream(slotToCard).filter(Objects::nonNull).collect(Collectors.toList());
-        env.util.findSets(deck, Integer.MAX_VALUE).forEach(set -> {
-            StringBuilder sb = new StringBuilder().append("Hint: Set found: ");
-            List<Integer> slots = Arrays.stream(set).mapToObj(card -> cardToSlot[card]).sorted()
-                    .collect(Collectors.toList());
-            int[][] features = env.util.cardsToFeatures(set);
-            System.out.println(
-                    sb.append("slots: ").append(slots).append(" features: ").append(Arrays.deepToString(features)));
+        if (indexed) {
+            for (int slot = 0; slot < slotToCard.length; slot++)
+                if (setsPerSlot[slot] > 0)
+                    for (int[] set : setsAt(slot))
+                        if (set[0] == slot)
+                            printHint(Arrays.stream(set).boxed().collect(Collectors.toList()));
+            return;
+        }
+        int[] cards = Arrays.stream(slotToCard).filter(card -> card != NONE).toArray();
+        env.util.forEachSet(cards, cards.length, set -> {
+            printHint(Arrays.stream(set).mapToObj(card -> cardToSlot[card]).sorted().collect(Collectors.toList()));
+            return true;
         });
     }
 
+    private void printHint(List<Integer> slots) {
+        StringBuilder sb = new StringBuilder().append("Hint: Set found: ");
+        int[][] features = env.util.cardsToFeatures(slots.stream().mapToInt(slot -> slotToCard[slot]).toArray());
+        System.out.println(
+                sb.append("slots: ").append(slots).append(" features: ").append(Arrays.deepToString(features)));
+    }
+
+    /**
+     * @return - the number of legal sets currently on the table.
+     */
+    public int setCount() {
+        return setCount;
+    }
+
+    /**
+     * @return - true iff there is at least one legal set on the table.
+     */
+    public boolean hasSet() {
+        return setCount > 0;
+    }
+
+    /**
+     * @param slot - the slot to check.
+     * @return - the number of legal sets on the table that include the card in the slot.
+     */
+    public int setCountAt(int slot) {
+        return setsPerSlot[slot];
+    }
+
+    /**
+     * Finds the legal sets on the table that include the card in a slot.
+     *
+     * @param slot - the slot to check.
+     * @return - a list of the sets, each one an array of the (sorted) slots of its cards.
+     */
+    public List<int[]> setsAt(int slot) {
+        List<int[]> sets = new LinkedList<>();
+        if (setsPerSlot[slot] == 0)
+            return sets;
+        int card = slotToCard[slot];
+        for (int other = 0; other < slotToCard.length && sets.size() < setsPerSlot[slot]; other++) {
+            if (other == slot || slotToCard[other] == NONE)
+                continue;
+            int third = env.util.thirdCard(card, slotToCard[other]);
+            if (cardToSlot[third] != NONE && other < cardToSlot[third]) {
+                int[] set = {slot, other, cardToSlot[third]};
+                Arrays.sort(set);
+                sets.add(set);
+            }
+        }
+        return sets;
+    }
+
+    /**
+     * Adds (or removes) the sets that include the card in a slot to (or from) the index of sets on the table.
+     * Takes O(tableSize) as every other card on the table is completed to a set by exactly one card.
+     *
+     * @param slot  - the slot of the card.
+     * @param delta - 1 if the card was placed, -1 if it is being removed.
+     */
+    private void indexSets(int slot, int delta) {
+        indexSets(slot, delta, 0);
+    }
+
+    /**
+     * Adds (or removes) the sets that include the card in a slot and cards in the slots from a given slot on.
+     *
+     * @param slot  - the slot of the card.
+     * @param delta - 1 if the card was placed, -1 if it is being removed.
+     * @param from  - the first slot the other cards of the sets may be in.
+     */
+    private void indexSets(int slot, int delta, int from) {
+        if (!indexed)
+            return;
+        int card = slotToCard[slot];
+        for (int other = from; other < slotToCard.length; other++) {
+            if (other == slot || slotToCard[other] == NONE)
+                continue;
+            int third = env.util.thirdCard(card, slotToCard[other]);
+            if (third < 0)
+                return;
+            int thirdSlot = cardToSlot[third];
+            if (thirdSlot != NONE && other < thirdSlot) {
+                setsPerSlot[slot] += delta;
+                setsPerSlot[other] += delta;
+                setsPerSlot[thirdSlot] += delta;
+                setCount += delta;
+            }
+        }
+    }
+
     /**
      * Count the number of cards currently on the table.
      *
      * @return - the number of cards on the table.
      */
     public int countCards() {
-        int cards = 0;
-        for (Integer card : slotToCard)
-            if (card != null)
-                ++cards;
-        return cards;
+        return cardCount;
+    }
+
+    /**
+     * Finds the first empty slot on the table, starting from a given slot.
+     *
+     * @param from - the slot to start from.
+     * @return - the first empty slot >= from (NONE if there is no such slot).
+     */
+    public int nextFreeSlot(int from) {
+        if (from >= slotToCard.length)
+            return NONE;
+        int word = from >> 6;
+        long bits = freeSlots[word] & (~0L << from);
+        while (bits == 0) {
+            if (++word == freeSlots.length)
+                return NONE;
+            bits = freeSlots[word];
+        }
+        return word * Long.SIZE + Long.numberOfTrailingZeros(bits);
+    }
+
+    /**
+     * @param slot - the slot to check.
+     * @return - the card placed in the slot (NONE if the slot is empty).
+     */
+    public int cardAt(int slot) {
+        StampedLock lock = lockOf(slot);
+        long stamp = lock.tryOptimisticRead();
+        int card = slotToCard[slot];
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                card = slotToCard[slot];
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return card;
+    }
+
+    /**
+     * @param card - the card to look for.
+     * @return - the slot the card is placed in (NONE if the card is not on the table).
+     */
+    public int slotOf(int card) {
+        int slot = cardToSlot[card];
+        if (slot == NONE)
+            return NONE;
+        // the card may have been removed from the slot since (and the slot guards both mappings)
+        return cardAt(slot) == card ? slot : NONE;
+    }
+
+    private StampedLock lockOf(int slot) {
+        return slotLocks[slot % slotLocks.length];
     }
 
     /**
@@ -99,15 +365,26 @@ public class Table {
      * @post - the card placed is on the table, in the assigned slot.
      */
     public void placeCard(int card, int slot) {
-        try {
-            Thread.sleep(env.config.tableDelayMillis);
-        } catch (InterruptedException ignored) {
-        }
-        cardToSlot[card] = slot;
-        slotToCard[slot] = card;
+        putCard(card, slot);
+        publishSnapshot();
+        animator.placeCard(card, slot); // update interface
+    }
 
-        // TODO implement
-        env.ui.placeCard(card, slot); // update interface
+    /**
+     * Places several cards on the table, and updates the ui once.
+     *
+     * @param cards - the card ids to place.
+     * @param slots - the slots in which the cards should be placed (respectively).
+     *
+     * @post - the cards placed are on the table, in the assigned slots.
+     */
+    public void placeCards(int[] cards, int[] slots) {
+        for (int i = 0; i < cards.length; i++)
+            putCard(cards[i], slots[i]);
+        if (cards.length > 0) {
+            publishSnapshot();
+            animator.placeCards(cards, slots);
+        }
     }
 
     /**
@@ -116,19 +393,120 @@ public class Table {
      * @param slot - the slot from which to remove the card.
      */
     public void removeCard(int slot) {
+        if (takeCard(slot)) {
+            publishSnapshot();
+            animator.removeCard(slot);
+        }
+    }
+
+    /**
+     * Removes the cards from several slots on the table, and updates the ui once.
+     *
+     * @param slots - the slots from which to remove the cards.
+     */
+    public void removeCards(int[] slots) {
+        int removed = 0;
+        int[] removedSlots = new int[slots.length];
+        for (int slot : slots)
+            if (takeCard(slot))
+                removedSlots[removed++] = slot;
+        if (removed > 0) {
+            publishSnapshot();
+            animator.removeCards(Arrays.copyOf(removedSlots, removed));
+        }
+    }
+
+    private void putCard(int card, int slot) {
+        if (slotToCard[slot] != NONE)
+            indexSets(slot, -1);
+        else {
+            cardCount++;
+            freeSlots[slot >> 6] &= ~(1L << slot);
+        }
+        StampedLock lock = lockOf(slot);
+        long stamp = lock.writeLock();
         try {
-            Thread.sleep(env.config.tableDelayMillis);
-        } catch (InterruptedException ignored) {
+            if (slotToCard[slot] != NONE)
+                cardToSlot[slotToCard[slot]] = NONE;
+            cardToSlot[card] = slot;
+            slotToCard[slot] = card;
+        } finally {
+            lock.unlockWrite(stamp);
         }
+        slotEpochs[slot] = ++epoch;
+        indexSets(slot, 1);
+    }
 
-        // TODO implement
-        if (isValid(slot, "slot")) { // using added funct
-            if (slotToCard[slot] != null) {
-                int toRemove = slotToCard[slot]; // saving the card we remove
-                slotToCard[slot] = null;
-                cardToSlot[toRemove] = null; // using the saved card (int)
-                env.ui.removeCard(slot);
-            }
+    /**
+     * @return - true iff there was a card in the slot.
+     */
+    private boolean takeCard(int slot) {
+        if (!isValid(slot, "slot") || slotToCard[slot] == NONE) // using added funct
+            return false;
+        indexSets(slot, -1);
+        StampedLock lock = lockOf(slot);
+        long stamp = lock.writeLock();
+        try {
+            int toRemove = slotToCard[slot]; // saving the card we remove
+            slotToCard[slot] = NONE;
+            cardToSlot[toRemove] = NONE; // using the saved card (int)
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        slotEpochs[slot] = ++epoch;
+        cardCount--;
+        freeSlots[slot >> 6] |= 1L << slot;
+        return true;
+    }
+
+    /**
+     * @return - an immutable snapshot of the cards on the table, as of the last change.
+     */
+    public Snapshot snapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Checks whether a claim was made on the current cards of its slots (i.e. none of its slots changed since the
+     * snapshot the player saw). Takes O(claim size) and does not read the cards.
+     *
+     * @param claim - the claim to check.
+     * @return - true iff none of the claimed slots changed since the claim's epoch.
+     */
+    public boolean isCurrent(Claim claim) {
+        for (int i = 0; i < claim.size(); i++)
+            if (!isValid(claim.slot(i), "slot") || slotEpochs[claim.slot(i)] > claim.epoch)
+                return false;
+        return true;
+    }
+
+    private void publishSnapshot() {
+        snapshot = new Snapshot(epoch, slotToCard.clone());
+    }
+
+    /**
+     * An immutable copy of the cards on the table at some epoch.
+     */
+    public static final class Snapshot {
+
+        /**
+         * The epoch of the table the snapshot was taken at.
+         */
+        public final long epoch;
+
+        private final int[] slotToCard;
+
+        private Snapshot(long epoch, int[] slotToCard) {
+            this.epoch = epoch;
+            this.slotToCard = slotToCard;
+        }
+
+        /**
+         * @param slot - the slot to check.
+         * @return - the card that was placed in the slot (NONE if the slot was empty).
+         */
+        public int cardAt(int slot) {
+            return slotToCard[slot];
         }
     }
 
@@ -139,10 +517,8 @@ public class Table {
      * @param slot   - the slot on which to place the token.
      */
     public void placeToken(int player, int slot) {
-        // TODO implement
-        playersChoices[player][slot] = true;
-        env.ui.placeToken(player, slot);
-
+        setBits(word(player, slot), bit(slot));
+        animator.placeToken(player, slot);
     }
 
     /**
@@ -153,15 +529,27 @@ public class Table {
      * @return - true iff a token was successfully removed.
      */
     public boolean removeToken(int player, int slot) {
-        // TODO implement
-        // if (playersChoices[player][slot]) {
-        playersChoices[player][slot] = false;
-        env.ui.removeToken(player, slot);
-        return false;
+        boolean removed = (clearBits(word(player, slot), bit(slot)) & bit(slot)) != 0;
+        if (removed)
+            animator.removeToken(player, slot);
+        return removed;
     }
 
+    /**
+     * Removes the tokens of all players.
+     */
     public void removeAllTokens() {
-        playersChoices = new boolean[env.config.players][(env.config.rows) * (env.config.columns)]; //magic number
+        for (int i = 0; i < tokens.length(); i++)
+            tokens.set(i, 0);
+        animator.removeTokens();
+    }
+
+    /**
+     * Stops the thread that displays the table changes, once the changes made so far are displayed (later changes
+     * are displayed immediately). Called when the game is over.
+     */
+    public void shutdown() {
+        animator.shutdown();
     }
 
     public boolean isValid(int i, String str) { // added func
@@ -179,37 +567,92 @@ public class Table {
     }
 
     public void resetAll() { // added func
-        for (int i = 0; i < this.playersChoices.length; i++) {
-            for (int j = 0; j < this.playersChoices[i].length; j++) {
-                this.playersChoices[i][j] = false;
-            }
-        }
+        removeAllTokens();
     }
 
     public void resetPlayerChoices(int playerId) { // addfunc when player placed three without figure a set
-        for (int i = 0; i < this.playersChoices[playerId].length; i++) {
-            this.playersChoices[playerId][i] = false;
-        }
+        for (int word = 0; word < wordsPerPlayer; word++)
+            tokens.set(playerId * wordsPerPlayer + word, 0);
     }
 
+    /**
+     * Removes the tokens of all players from the slots the player has tokens on (i.e. the slots of a set the player
+     * collected).
+     *
+     * @param playerId - the player who collected the set.
+     */
     public void playerGotsetToRemove(int playerId) { // added func # removes token if set
-
-        for (int i = 0; i < playersChoices[playerId].length; i++) {
-            if (playersChoices[playerId][i]) {
-                for (int j = 0; j < playersChoices.length; j++) { //////
-                    // ----- in remove we make sure to remove each token
-                    removeToken(j, i); // deleting from other players that has token on the same card
-                }
+        for (int word = 0; word < wordsPerPlayer; word++) {
+            long slots = tokens.get(playerId * wordsPerPlayer + word);
+            if (slots == 0)
+                continue;
+            for (int player = 0; player < env.config.players; player++) {
+                long removed = clearBits(player * wordsPerPlayer + word, slots) & slots;
+                for (; removed != 0; removed &= removed - 1)
+                    animator.removeToken(player, word * Long.SIZE + Long.numberOfTrailingZeros(removed));
             }
         }
     }
 
-    public boolean[][] getPlayersChoices() { // added func
-        return this.playersChoices;
+    /**
+     * @param playerId - the player.
+     * @return - the number of tokens the player has on the table.
+     */
+    public int tokenCount(int playerId) {
+        int count = 0;
+        for (int word = 0; word < wordsPerPlayer; word++)
+            count += Long.bitCount(tokens.get(playerId * wordsPerPlayer + word));
+        return count;
+    }
+
+    /**
+     * @param playerId - the player.
+     * @return - the slots the player has tokens on, in ascending order.
+     */
+    public int[] tokenSlots(int playerId) {
+        int[] slots = new int[tokenCount(playerId)];
+        int i = 0;
+        for (int word = 0; word < wordsPerPlayer; word++)
+            for (long bits = tokens.get(playerId * wordsPerPlayer + word); bits != 0 && i < slots.length; bits &= bits - 1)
+                slots[i++] = word * Long.SIZE + Long.numberOfTrailingZeros(bits);
+        return i == slots.length ? slots : Arrays.copyOf(slots, i);
     }
 
     public boolean cardHasChosen(int playerId, int slot) { // added func
-        return playersChoices[playerId][slot];
+        return (tokens.get(word(playerId, slot)) & bit(slot)) != 0;
+    }
+
+    private int word(int player, int slot) {
+        return player * wordsPerPlayer + (slot >> 6);
     }
 
+    private static long bit(int slot) {
+        return 1L << slot;
+    }
+
+    /**
+     * Atomically sets bits in a word of the tokens array.
+     *
+     * @return - the previous value of the word.
+     */
+    private long setBits(int index, long bits) {
+        long old;
+        do {
+            old = tokens.get(index);
+        } while (!tokens.compareAndSet(index, old, old | bits));
+        return old;
+    }
+
+    /**
+     * Atomically clears bits in a word of the tokens array.
+     *
+     * @return - the previous value of the word.
+     */
+    private long clearBits(int index, long bits) {
+        long old;
+        do {
+            old = tokens.get(index);
+        } while ((old & bits) != 0 && !tokens.compareAndSet(index, old, old & ~bits));
+        return old;
+    }
 }
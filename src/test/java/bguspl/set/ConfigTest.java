@@ -0,0 +1,39 @@
+package bguspl.set;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConfigTest {
+
+    @Test
+    void deckSize_Overflow() {
+
+        Properties properties = new Properties();
+        properties.put("FeatureSize", "9");
+        properties.put("FeatureCount", "11");
+
+        assertThrows(IllegalArgumentException.class, () -> new Config(new UtilImplTest.MockLogger(), properties));
+    }
+
+    @Test
+    void executionMode_FallsBackToPlatform() throws InterruptedException {
+
+        Properties properties = new Properties();
+        properties.put("ExecutionMode", "virtual");
+        Config config = new Config(new UtilImplTest.MockLogger(), properties);
+
+        assertEquals(ExecutionMode.VIRTUAL.isSupported() ? ExecutionMode.VIRTUAL : ExecutionMode.PLATFORM,
+                config.executionMode);
+        boolean[] ran = {false};
+        Thread thread = config.executionMode.newThread(() -> ran[0] = true, "task");
+        assertEquals("task", thread.getName());
+        thread.start();
+        thread.join();
+        assertTrue(ran[0]);
+    }
+}
@@ -0,0 +1,98 @@
+package bguspl.set;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CooperativeTaskTest {
+
+    ScheduledExecutorService executor = Executors.newScheduledThreadPool(4);
+    Logger logger = Logger.getAnonymousLogger();
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void wakeUp_StepsNeverOverlapAndNoWakeUpIsLost() throws InterruptedException {
+
+        // every wake up hands the task a unit of work, which a later step must handle
+        int threads = 4, wakeUps = 10000;
+        AtomicInteger work = new AtomicInteger(), running = new AtomicInteger(), overlaps = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(1);
+        int[] handled = {0};
+        CooperativeTask task = new CooperativeTask("test", () -> {
+            if (running.incrementAndGet() > 1)
+                overlaps.incrementAndGet();
+            handled[0] += work.getAndSet(0);
+            if (handled[0] == threads * wakeUps)
+                done.countDown();
+            running.decrementAndGet();
+        }, executor, logger);
+        task.start();
+
+        Thread[] producers = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            producers[i] = new Thread(() -> {
+                for (int j = 0; j < wakeUps; j++) {
+                    work.incrementAndGet();
+                    task.wakeUp();
+                }
+            });
+            producers[i].start();
+        }
+        for (Thread producer : producers)
+            producer.join();
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertEquals(0, overlaps.get());
+    }
+
+    @Test
+    void stop_NoStepRunsAfterwards() throws InterruptedException {
+
+        AtomicInteger steps = new AtomicInteger();
+        CountDownLatch woken = new CountDownLatch(1);
+        CooperativeTask task = new CooperativeTask("test", () -> {
+            steps.incrementAndGet();
+            woken.countDown();
+        }, executor, logger);
+        task.start();
+        assertTrue(woken.await(10, TimeUnit.SECONDS));
+
+        task.stop();
+        task.wakeUp();
+        task.wakeUpIn(1);
+        Thread.sleep(50);
+
+        assertTrue(task.isStopped());
+        assertEquals(1, steps.get());
+    }
+
+    @Test
+    void run_AnErrorStopsTheTask() throws InterruptedException {
+
+        Logger silent = Logger.getAnonymousLogger();
+        silent.setUseParentHandlers(false);
+        CountDownLatch failed = new CountDownLatch(1);
+        CooperativeTask task = new CooperativeTask("test", () -> {
+            failed.countDown();
+            throw new AssertionError("step failed");
+        }, executor, silent);
+        task.start();
+        assertTrue(failed.await(10, TimeUnit.SECONDS));
+
+        Thread.sleep(50);
+        assertTrue(task.isStopped());
+    }
+}
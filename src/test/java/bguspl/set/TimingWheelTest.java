@@ -0,0 +1,83 @@
+package bguspl.set;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimingWheelTest {
+
+    VirtualClock clock = new VirtualClock(0);
+    TimingWheel timers = new TimingWheel(clock, ExecutionMode.PLATFORM);
+
+    @AfterEach
+    void tearDown() {
+        timers.shutdown();
+    }
+
+    @Test
+    void schedule_RunsEveryTaskAtItsDeadline() throws InterruptedException {
+
+        // hundreds of freezes at once, some of them more than a lap around the wheel away
+        int tasks = 500;
+        long[] deadlines = new long[tasks], ranAt = new long[tasks];
+        SplittableRandom random = new SplittableRandom(5);
+        CountDownLatch done = new CountDownLatch(tasks);
+        // the time does not pass until all the tasks are scheduled
+        clock.enter();
+        for (int i = 0; i < tasks; i++) {
+            int task = i;
+            deadlines[i] = 1 + random.nextInt(5000);
+            timers.schedule(deadlines[i], () -> {
+                ranAt[task] = clock.millis();
+                done.countDown();
+            });
+        }
+        clock.exit();
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertArrayEquals(deadlines, ranAt);
+    }
+
+    @Test
+    void schedule_TaskSchedulesTheNextOne() throws InterruptedException {
+
+        CountDownLatch done = new CountDownLatch(1);
+        long[] ticks = new long[4];
+        timers.schedule(1000, new Runnable() {
+            int count;
+
+            @Override
+            public void run() {
+                ticks[count++] = clock.millis();
+                if (count < ticks.length)
+                    timers.schedule(clock.millis() + 1000, this);
+                else
+                    done.countDown();
+            }
+        });
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertArrayEquals(new long[]{1000, 2000, 3000, 4000}, ticks);
+    }
+
+    @Test
+    void cancel_TaskDoesNotRun() throws InterruptedException {
+
+        CountDownLatch done = new CountDownLatch(1);
+        boolean[] ran = {false};
+        clock.enter();
+        timers.schedule(100, () -> ran[0] = true).cancel();
+        timers.schedule(200, done::countDown);
+        clock.exit();
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertFalse(ran[0]);
+    }
+}
@@ -0,0 +1,88 @@
+package bguspl.set;
+
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Measures the throughput of testSet and findSets as the number of features grows (featureSize 3).
+ * Run with: mvn test-compile && java -cp target/classes:target/test-classes bguspl.set.UtilBenchmark [maxFeatureCount]
+ */
+public class UtilBenchmark {
+
+    private static final int TRIPLES = 1 << 16;
+    private static final long MEASURE_NANOS = 500_000_000L;
+
+    public static void main(String[] args) {
+        int maxFeatureCount = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        System.out.printf("%8s %8s %16s %16s %16s %12s%n",
+                "features", "cards", "testSet/s", "isSet/s", "table scans/s", "deck ms");
+        for (int featureCount = 4; featureCount <= maxFeatureCount; featureCount++)
+            run(featureCount);
+    }
+
+    private static void run(int featureCount) {
+        Properties properties = new Properties();
+        properties.put("FeatureSize", "3");
+        properties.put("FeatureCount", Integer.toString(featureCount));
+        properties.put("LogLevel", "OFF");
+        Config config = new Config(Logger.getAnonymousLogger(), properties);
+        UtilImpl util = new UtilImpl(config);
+
+        Random random = new Random(featureCount);
+        int[][] triples = new int[TRIPLES][];
+        for (int i = 0; i < TRIPLES; i++) {
+            int a = random.nextInt(config.deckSize), b = random.nextInt(config.deckSize);
+            // make about a third of the triples legal sets
+            triples[i] = new int[]{a, b, i % 3 == 0 && a != b ? util.thirdCard(a, b) : random.nextInt(config.deckSize)};
+        }
+
+        double testSetRate = rate(() -> {
+            int sets = 0;
+            for (int[] triple : triples)
+                if (util.testSet(triple)) sets++;
+            return sets;
+        });
+        double isSetRate = rate(() -> {
+            int sets = 0;
+            for (int[] triple : triples)
+                if (util.isSet(triple[0], triple[1], triple[2])) sets++;
+            return sets;
+        });
+
+        int[] table = random.ints(0, config.deckSize).distinct().limit(Math.min(21, config.deckSize)).toArray();
+        double tableRate = rate(() -> util.countSets(table, table.length));
+
+        // the search over a whole deck grows quadratically, so larger decks are capped at 3^8 cards
+        List<Integer> deck = IntStream.range(0, Math.min(config.deckSize, 6561)).boxed().collect(Collectors.toList());
+        long start = System.nanoTime();
+        util.findSets(deck, Integer.MAX_VALUE);
+        double deckMillis = (System.nanoTime() - start) / 1e6;
+
+        System.out.printf("%8d %8d %16.0f %16.0f %16.0f %12.1f%n",
+                featureCount, config.deckSize, testSetRate * TRIPLES, isSetRate * TRIPLES, tableRate, deckMillis);
+    }
+
+    /**
+     * @return - the number of times per second the task runs (after a warmup).
+     */
+    private static double rate(IntTask task) {
+        long sink = 0;
+        for (int i = 0; i < 20; i++)
+            sink += task.run();
+        long runs = 0, start = System.nanoTime(), elapsed;
+        do {
+            sink += task.run();
+            runs++;
+        } while ((elapsed = System.nanoTime() - start) < MEASURE_NANOS);
+        if (sink == 42) System.out.print(""); // keep the results alive
+        return runs * 1e9 / elapsed;
+    }
+
+    private interface IntTask {
+        int run();
+    }
+}
@@ -0,0 +1,235 @@
+package bguspl.set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UtilImplTest {
+
+    UtilImpl util;
+    Config config;
+
+    @BeforeEach
+    void setUp() {
+        Properties properties = new Properties();
+        properties.put("FeatureSize", "3");
+        properties.put("FeatureCount", "4");
+        config = new Config(new MockLogger(), properties);
+        util = new UtilImpl(config);
+    }
+
+    private List<Integer> fullDeck() {
+        return IntStream.range(0, config.deckSize).boxed().collect(Collectors.toList());
+    }
+
+    private Set<String> asStrings(List<int[]> sets) {
+        return sets.stream().map(Arrays::toString).collect(Collectors.toCollection(TreeSet::new));
+    }
+
+    private boolean isSetByDefinition(int[] cards) {
+        int[][] features = util.cardsToFeatures(cards);
+        for (int i = 0; i < config.featureCount; ++i) {
+            Set<Integer> values = new TreeSet<>();
+            for (int[] card : features)
+                values.add(card[i]);
+            if (values.size() != 1 && values.size() != cards.length) return false;
+        }
+        return true;
+    }
+
+    @Test
+    void isSet_MatchesDefinition() {
+
+        Random random = new Random(7);
+        for (int round = 0; round < 10000; ++round) {
+            int[] cards = random.ints(0, config.deckSize).distinct().limit(3).toArray();
+
+            boolean expected = isSetByDefinition(cards);
+            assertEquals(expected, util.isSet(cards[0], cards[1], cards[2]));
+            assertEquals(expected, util.testSet(cards));
+        }
+    }
+
+    @Test
+    void testSet_FourFeatureValues() {
+
+        Properties properties = new Properties();
+        properties.put("FeatureSize", "4");
+        properties.put("FeatureCount", "3");
+        config = new Config(new MockLogger(), properties);
+        util = new UtilImpl(config);
+
+        // features: 000, 111, 222, 333 / 012, 123, 230, 301 / 000, 001, 002, 013
+        assertTrue(util.testSet(new int[]{0, 21, 42, 63}));
+        assertTrue(util.testSet(new int[]{6, 27, 44, 49}));
+        assertFalse(util.testSet(new int[]{0, 1, 2, 7}));
+    }
+
+    @Test
+    void isSet_TenFeatures() {
+
+        Properties properties = new Properties();
+        properties.put("FeatureSize", "3");
+        properties.put("FeatureCount", "10");
+        config = new Config(new MockLogger(), properties);
+        util = new UtilImpl(config);
+
+        Random random = new Random(11);
+        for (int round = 0; round < 10000; ++round) {
+            int a = random.nextInt(config.deckSize), b = random.nextInt(config.deckSize);
+            if (a == b) continue;
+            int c = util.thirdCard(a, b);
+
+            assertTrue(isSetByDefinition(new int[]{a, b, c}));
+            assertTrue(util.isSet(a, b, c));
+            assertFalse(util.isSet(a, b, (c + 1) % config.deckSize));
+        }
+    }
+
+    @Test
+    void constructor_FeatureTableOverflow() {
+
+        // 9^9 cards fit in an int, but their 9 features each do not
+        Properties properties = new Properties();
+        properties.put("FeatureSize", "9");
+        properties.put("FeatureCount", "9");
+        Config config = new Config(new MockLogger(), properties);
+
+        assertThrows(IllegalArgumentException.class, () -> new UtilImpl(config));
+    }
+
+    @Test
+    void findSets_FullDeckMatchesCombinatorial() {
+
+        List<Integer> deck = fullDeck();
+        List<int[]> expected = util.findSetsCombinatorial(deck, Integer.MAX_VALUE);
+        List<int[]> actual = util.findSets(deck, Integer.MAX_VALUE);
+
+        assertEquals(config.deckSize * (config.deckSize - 1) / 6, actual.size());
+        assertEquals(asStrings(expected), asStrings(actual));
+    }
+
+    @Test
+    void findSets_RandomTablesMatchCombinatorial() {
+
+        Random random = new Random(42);
+        for (int round = 0; round < 200; ++round) {
+            List<Integer> deck = fullDeck();
+            Collections.shuffle(deck, random);
+            deck = new ArrayList<>(deck.subList(0, 3 + random.nextInt(30)));
+
+            assertEquals(asStrings(util.findSetsCombinatorial(deck, Integer.MAX_VALUE)),
+                    asStrings(util.findSets(deck, Integer.MAX_VALUE)));
+        }
+    }
+
+    @Test
+    void findSets_StopsAfterCount() {
+
+        List<int[]> sets = util.findSets(fullDeck(), 5);
+
+        assertEquals(5, sets.size());
+        sets.forEach(set -> assertTrue(util.testSet(set)));
+    }
+
+    @Test
+    void findSets_ParallelMatchesSequential() {
+
+        Properties properties = new Properties();
+        properties.put("FeatureSize", "3");
+        properties.put("FeatureCount", "5");
+        properties.put("ParallelSearchThreshold", "1");
+        UtilImpl parallel = new UtilImpl(new Config(new MockLogger(), properties));
+        properties.put("ParallelSearchThreshold", "0");
+        UtilImpl sequential = new UtilImpl(new Config(new MockLogger(), properties));
+        List<Integer> deck = IntStream.range(0, 243).boxed().collect(Collectors.toList());
+
+        assertEquals(asStrings(sequential.findSets(deck, Integer.MAX_VALUE)),
+                asStrings(parallel.findSets(deck, Integer.MAX_VALUE)));
+        List<int[]> some = parallel.findSets(deck, 10);
+        assertEquals(10, some.size());
+        some.forEach(set -> assertTrue(parallel.testSet(set)));
+    }
+
+    @Test
+    void forEachSet_ParallelCombinatorialMatchesSequential() {
+
+        Properties properties = new Properties();
+        properties.put("FeatureSize", "4");
+        properties.put("FeatureCount", "3");
+        properties.put("ParallelSearchThreshold", "1");
+        UtilImpl parallel = new UtilImpl(new Config(new MockLogger(), properties));
+        properties.put("ParallelSearchThreshold", "0");
+        UtilImpl sequential = new UtilImpl(new Config(new MockLogger(), properties));
+        List<Integer> deck = IntStream.range(0, 64).boxed().collect(Collectors.toList());
+
+        assertEquals(asStrings(sequential.findSets(deck, Integer.MAX_VALUE)),
+                asStrings(parallel.findSets(deck, Integer.MAX_VALUE)));
+        int[] visited = {0};
+        parallel.forEachSet(IntStream.range(0, 64).toArray(), 64, set -> {
+            assertTrue(parallel.testSet(set));
+            return ++visited[0] < 3;
+        });
+        assertEquals(3, visited[0]);
+    }
+
+    @Test
+    void forEachSet_CountsAndStops() {
+
+        int[] cards = IntStream.range(0, config.deckSize).toArray();
+        assertEquals(1080, util.countSets(cards, cards.length));
+        assertEquals(util.findSets(fullDeck().subList(0, 20), Integer.MAX_VALUE).size(), util.countSets(cards, 20));
+
+        int[] visited = {0};
+        util.forEachSet(cards, cards.length, set -> {
+            assertTrue(util.testSet(set));
+            return ++visited[0] < 3;
+        });
+        assertEquals(3, visited[0]);
+    }
+
+    @Test
+    void forEachSet_FourFeatureValuesMatchesCombinatorial() {
+
+        Properties properties = new Properties();
+        properties.put("FeatureSize", "4");
+        properties.put("FeatureCount", "2");
+        util = new UtilImpl(new Config(new MockLogger(), properties));
+        List<Integer> deck = IntStream.range(0, 16).boxed().collect(Collectors.toList());
+        List<int[]> sets = new ArrayList<>();
+        util.forEachSet(deck.stream().mapToInt(Integer::intValue).toArray(), 16, set -> sets.add(set.clone()));
+
+        assertEquals(asStrings(util.findSetsCombinatorial(deck, Integer.MAX_VALUE)), asStrings(sets));
+    }
+
+    @Test
+    void findSets_NoSetOnTable() {
+
+        // features only take the values 0 and 1, so three distinct cards can never form a set
+        List<Integer> deck = Arrays.asList(0, 1, 3, 4, 9, 10);
+
+        assertTrue(util.findSets(deck, Integer.MAX_VALUE).isEmpty());
+    }
+
+    static class MockLogger extends Logger {
+        protected MockLogger() {
+            super("", null);
+        }
+    }
+}
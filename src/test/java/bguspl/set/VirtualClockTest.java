@@ -0,0 +1,63 @@
+package bguspl.set;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class VirtualClockTest {
+
+    VirtualClock clock = new VirtualClock(0);
+
+    @Test
+    void park_TimeJumpsToEarliestDeadline() throws InterruptedException {
+
+        long[] wokeAt = new long[2];
+        Thread[] threads = new Thread[2];
+        for (int i = 0; i < threads.length; i++) {
+            int sleeper = i;
+            threads[i] = new Thread(() -> {
+                long deadline = 60_000 * (sleeper + 1);
+                while (clock.millis() < deadline)
+                    clock.park(this, deadline);
+                wokeAt[sleeper] = clock.millis();
+                clock.exit();
+            });
+        }
+        long start = System.currentTimeMillis();
+        for (Thread thread : threads) {
+            clock.enter();
+            thread.start();
+        }
+        for (Thread thread : threads)
+            thread.join();
+
+        assertEquals(60_000, wokeAt[0]);
+        assertEquals(120_000, wokeAt[1]);
+        assertTrue(System.currentTimeMillis() - start < 10_000);
+    }
+
+    @Test
+    void park_TimeStandsWhileAThreadRuns() throws InterruptedException {
+
+        boolean[] woken = {false};
+        Thread sleeper = new Thread(() -> {
+            while (!woken[0])
+                clock.park(this, Clock.NEVER);
+            clock.park(this, 1000);
+            clock.exit();
+        });
+        clock.enter();
+        clock.enter();
+        sleeper.start();
+        Thread.sleep(20);
+        // this thread takes part in the game and runs, so the time does not pass
+        assertEquals(0, clock.millis());
+
+        woken[0] = true;
+        clock.unpark(sleeper);
+        clock.exit();
+        sleeper.join();
+        assertEquals(1000, clock.millis());
+    }
+}
@@ -0,0 +1,86 @@
+package bguspl.set.ex;
+
+import bguspl.set.Config;
+import bguspl.set.Env;
+import bguspl.set.UtilImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ClaimRingTest {
+
+    Table.Snapshot snapshot;
+
+    @BeforeEach
+    void setUp() {
+
+        Properties properties = new Properties();
+        properties.put("TableDelaySeconds", "0");
+        TableTest.MockLogger logger = new TableTest.MockLogger();
+        Config config = new Config(logger, properties);
+        Env env = new Env(logger, config, new TableTest.MockUserInterface(), new UtilImpl(config));
+        snapshot = new Table(env).snapshot();
+    }
+
+    @Test
+    void offer_UntilFull() {
+
+        ClaimRing ring = new ClaimRing(3);
+        assertEquals(4, ring.capacity());
+
+        Claim[] claims = new Claim[5];
+        for (int i = 0; i < claims.length; i++)
+            claims[i] = new Claim(i, new int[]{0, 1, 2}, snapshot);
+        for (int i = 0; i < 4; i++)
+            assertTrue(ring.offer(claims[i]));
+        assertFalse(ring.offer(claims[4]));
+
+        assertSame(claims[0], ring.poll());
+        assertTrue(ring.offer(claims[4]));
+        for (int i = 1; i < claims.length; i++)
+            assertSame(claims[i], ring.poll());
+        assertNull(ring.poll());
+    }
+
+    @Test
+    void poll_ManyProducers() throws InterruptedException {
+
+        int producers = 128, claimsPerProducer = 200;
+        ClaimRing ring = new ClaimRing(producers);
+        Claim[][] claims = new Claim[producers][claimsPerProducer];
+        Thread[] threads = new Thread[producers];
+        for (int p = 0; p < producers; p++) {
+            for (int i = 0; i < claimsPerProducer; i++)
+                claims[p][i] = new Claim(p, new int[]{0, 1, 2}, snapshot);
+            Claim[] own = claims[p];
+            threads[p] = new Thread(() -> {
+                for (Claim claim : own)
+                    while (!ring.offer(claim))
+                        Thread.yield();
+            });
+            threads[p].start();
+        }
+
+        int[] next = new int[producers];
+        for (int polled = 0; polled < producers * claimsPerProducer; ) {
+            Claim claim = ring.poll();
+            if (claim == null) {
+                Thread.yield();
+                continue;
+            }
+            // the claims of each player are polled in the order it offered them
+            assertSame(claims[claim.player][next[claim.player]++], claim);
+            polled++;
+        }
+        for (Thread thread : threads)
+            thread.join();
+        assertNull(ring.poll());
+    }
+}
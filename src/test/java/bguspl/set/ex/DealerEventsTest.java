@@ -0,0 +1,56 @@
+package bguspl.set.ex;
+
+import bguspl.set.RealClock;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DealerEventsTest {
+
+    DealerEvents events = new DealerEvents(new RealClock());
+
+    @Test
+    void next_DueScheduledBeforePosted() {
+
+        long now = System.currentTimeMillis();
+        events.post(DealerEvents.Type.CLAIM);
+        events.schedule(DealerEvents.Type.TICK, now - 1);
+        events.post(DealerEvents.Type.CLAIM);
+
+        assertEquals(DealerEvents.Type.TICK, events.next());
+        assertEquals(DealerEvents.Type.CLAIM, events.next());
+        assertEquals(DealerEvents.Type.CLAIM, events.next());
+    }
+
+    @Test
+    void next_WaitsForDeadline() {
+
+        long start = System.currentTimeMillis();
+        events.schedule(DealerEvents.Type.RESHUFFLE, start + 50);
+        events.schedule(DealerEvents.Type.TICK, start + 20);
+
+        DealerEvents.Type event;
+        while ((event = events.next()) == null) ;
+        assertEquals(DealerEvents.Type.TICK, event);
+        assertTrue(System.currentTimeMillis() - start >= 20);
+        while ((event = events.next()) == null) ;
+        assertEquals(DealerEvents.Type.RESHUFFLE, event);
+        assertTrue(System.currentTimeMillis() - start >= 50);
+    }
+
+    @Test
+    void next_WokenUpWithoutEvent() throws InterruptedException {
+
+        DealerEvents.Type[] event = {DealerEvents.Type.CLAIM};
+        // nothing is scheduled, so only a wake up returns
+        Thread dealer = new Thread(() -> event[0] = events.next());
+        dealer.start();
+        while (dealer.isAlive()) {
+            events.wakeUp();
+            dealer.join(10);
+        }
+        assertNull(event[0]);
+    }
+}
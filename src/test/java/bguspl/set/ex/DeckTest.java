@@ -0,0 +1,46 @@
+package bguspl.set.ex;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DeckTest {
+
+    @Test
+    void draw_EveryCardOnce() {
+
+        Deck deck = new Deck(81, new SplittableRandom(1));
+        boolean[] drawn = new boolean[81];
+        for (int i = 0; i < 81; i++) {
+            int card = deck.draw();
+            assertFalse(drawn[card]);
+            drawn[card] = true;
+        }
+        assertTrue(deck.isEmpty());
+    }
+
+    @Test
+    void add_CardsCanBeDrawnAgain() {
+
+        Deck deck = new Deck(3, new SplittableRandom(2));
+        int first = deck.draw(), second = deck.draw();
+        assertEquals(1, deck.size());
+
+        deck.add(first);
+        deck.add(second);
+        assertEquals(3, deck.size());
+        assertEquals(0 + 1 + 2, deck.draw() + deck.draw() + deck.draw());
+    }
+
+    @Test
+    void draw_SameSeedSameOrder() {
+
+        Deck deck = new Deck(81, new SplittableRandom(3)), other = new Deck(81, new SplittableRandom(3));
+        for (int i = 0; i < 81; i++)
+            assertEquals(deck.draw(), other.draw());
+    }
+}
@@ -0,0 +1,69 @@
+package bguspl.set.ex;
+
+import bguspl.set.Config;
+import bguspl.set.Env;
+import bguspl.set.UtilImpl;
+
+import java.lang.management.ManagementFactory;
+import java.util.Properties;
+import java.util.SplittableRandom;
+
+/**
+ * Measures the time the dealer takes to hand a verdict on a claim while 0 to 128 idle (human) players wait for key
+ * presses, together with the CPU time the whole game uses.
+ * Run with: mvn test-compile && java -cp target/classes:target/test-classes bguspl.set.ex.IdlePlayersBenchmark
+ */
+public class IdlePlayersBenchmark {
+
+    private static final long MEASURE_MILLIS = 2000;
+
+    public static void main(String[] args) throws InterruptedException {
+        System.out.printf("%8s %10s %16s %16s %16s%n", "idle", "claims", "mean verdict us", "max verdict us", "cpu ms/s");
+        for (int idle = 0; idle <= 256; idle = idle == 0 ? 8 : idle * 4)
+            run(idle);
+    }
+
+    private static void run(int idle) throws InterruptedException {
+        Properties properties = new Properties();
+        properties.put("HumanPlayers", Integer.toString(idle + 1));
+        properties.put("ComputerPlayers", "0");
+        properties.put("TableDelaySeconds", "0");
+        properties.put("PointFreezeSeconds", "0");
+        properties.put("PenaltyFreezeSeconds", "0");
+        properties.put("PlayerKeys1", "");
+        properties.put("PlayerKeys2", "");
+        properties.put("LogLevel", "OFF");
+        properties.put("RandomSeed", "1");
+        TableTest.MockLogger logger = new TableTest.MockLogger();
+        Config config = new Config(logger, properties);
+        Env env = new Env(logger, config, new TableTest.MockUserInterface(), new UtilImpl(config));
+        Player[] players = new Player[config.players];
+        Table table = new Table(env);
+        Dealer dealer = new Dealer(env, table, players);
+        for (int i = 0; i < players.length; i++)
+            players[i] = new Player(env, dealer, table, i, true);
+
+        Thread dealerThread = new Thread(dealer, "dealer");
+        dealerThread.start();
+        long cpuStart = cpuNanos();
+        long end = System.currentTimeMillis() + MEASURE_MILLIS;
+        // only player 0 presses keys, the rest of the players stay idle
+        SplittableRandom random = new SplittableRandom(1);
+        while (System.currentTimeMillis() < end) {
+            players[0].keyPressed(random.nextInt(config.tableSize));
+            Thread.sleep(1);
+        }
+        long cpuMillis = (cpuNanos() - cpuStart) / 1_000_000;
+        dealer.terminate();
+        dealerThread.join();
+
+        long claims = dealer.claimsChecked();
+        System.out.printf("%8d %10d %16.1f %16.1f %16d%n", idle, claims,
+                claims == 0 ? 0.0 : dealer.verificationNanos() / 1e3 / claims, dealer.maxVerificationNanos() / 1e3,
+                cpuMillis * 1000 / MEASURE_MILLIS);
+    }
+
+    private static long cpuNanos() {
+        return ((com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean()).getProcessCpuTime();
+    }
+}
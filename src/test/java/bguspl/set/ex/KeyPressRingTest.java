@@ -0,0 +1,68 @@
+package bguspl.set.ex;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class KeyPressRingTest {
+
+    @Test
+    void offer_DropPolicyKeepsTheOldestPresses() {
+
+        KeyPressRing ring = new KeyPressRing(3, false);
+        for (int slot = 0; slot < 3; slot++)
+            assertTrue(ring.offer(slot));
+        assertFalse(ring.offer(3));
+
+        assertEquals(3, ring.size());
+        for (int slot = 0; slot < 3; slot++)
+            assertEquals(slot, ring.poll());
+        assertEquals(KeyPressRing.NONE, ring.poll());
+    }
+
+    @Test
+    void offer_OverwritePolicyKeepsTheNewestPresses() {
+
+        KeyPressRing ring = new KeyPressRing(3, true);
+        for (int slot = 0; slot < 5; slot++)
+            assertTrue(ring.offer(slot));
+
+        assertEquals(3, ring.size());
+        long before = System.nanoTime();
+        for (int slot = 2; slot < 5; slot++) {
+            assertEquals(slot, ring.poll());
+            assertTrue(ring.polledNanoTime() <= before);
+        }
+        assertEquals(KeyPressRing.NONE, ring.poll());
+    }
+
+    @Test
+    void poll_OverwritingProducerDeliversEveryPressAtMostOnceInOrder() throws InterruptedException {
+
+        // the producer keeps overwriting presses the consumer is about to poll
+        int presses = 1_000_000;
+        KeyPressRing ring = new KeyPressRing(3, true);
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < presses; i++)
+                ring.offer(i);
+        });
+        producer.start();
+
+        int last = -1;
+        while (last < presses - 1) {
+            int slot = ring.poll();
+            if (slot == KeyPressRing.NONE) {
+                if (!producer.isAlive() && ring.size() == 0)
+                    break;
+                continue;
+            }
+            assertTrue(slot > last);
+            last = slot;
+        }
+        producer.join();
+
+        assertEquals(presses - 1, last);
+    }
+}
@@ -0,0 +1,85 @@
+package bguspl.set.ex;
+
+import bguspl.set.Clock;
+import bguspl.set.Config;
+import bguspl.set.Env;
+import bguspl.set.ExecutionMode;
+import bguspl.set.RealClock;
+import bguspl.set.UtilImpl;
+import bguspl.set.VirtualClock;
+
+import java.lang.management.ManagementFactory;
+import java.util.Properties;
+
+/**
+ * Runs many computer-only tables at once (10k players by default) on virtual clocks (real clocks in the SHARED mode),
+ * and measures the claims the dealers handle per second and the number of platform threads the JVM needs for it.
+ * Run with: mvn test-compile && java -cp target/classes:target/test-classes bguspl.set.ex.ManyPlayersBenchmark
+ * [tables] [players per table] [PLATFORM|VIRTUAL|SHARED] [seconds]
+ */
+public class ManyPlayersBenchmark {
+
+    public static void main(String[] args) throws InterruptedException {
+        int tables = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+        int playersPerTable = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+        String mode = args.length > 2 ? args[2] : "VIRTUAL";
+        long seconds = args.length > 3 ? Long.parseLong(args[3]) : 10;
+
+        Properties properties = new Properties();
+        properties.put("HumanPlayers", "0");
+        properties.put("ComputerPlayers", Integer.toString(playersPerTable));
+        properties.put("TableDelaySeconds", "0");
+        properties.put("PlayerKeys1", "");
+        properties.put("PlayerKeys2", "");
+        properties.put("LogLevel", "OFF");
+        properties.put("ExecutionMode", mode);
+
+        Dealer[] dealers = new Dealer[tables];
+        Thread[] dealerThreads = new Thread[tables];
+        Config config = null;
+        for (int t = 0; t < tables; t++) {
+            properties.put("RandomSeed", Integer.toString(t));
+            TableTest.MockLogger logger = new TableTest.MockLogger();
+            config = new Config(logger, properties);
+            boolean shared = mode.equalsIgnoreCase(ExecutionMode.SHARED.name());
+            Clock clock = shared ? new RealClock() : new VirtualClock(0);
+            Env env = new Env(logger, config, new TableTest.MockUserInterface(), new UtilImpl(config), clock);
+            Player[] players = new Player[config.players];
+            Table table = new Table(env);
+            dealers[t] = new Dealer(env, table, players);
+            for (int i = 0; i < players.length; i++)
+                players[i] = new Player(env, dealers[t], table, i, false);
+            if (!shared) {
+                dealerThreads[t] = config.executionMode.newThread(dealers[t], "dealer-" + t);
+                clock.enter();
+            }
+        }
+
+        long start = System.nanoTime();
+        for (int t = 0; t < tables; t++)
+            if (dealerThreads[t] != null)
+                dealerThreads[t].start();
+            else
+                dealers[t].start(ExecutionMode.sharedExecutor());
+        Thread.sleep(seconds * 1000);
+        int peakThreads = ManagementFactory.getThreadMXBean().getPeakThreadCount();
+        for (Dealer dealer : dealers)
+            dealer.terminate();
+        for (int t = 0; t < tables; t++)
+            if (dealerThreads[t] != null)
+                dealerThreads[t].join();
+            else
+                dealers[t].awaitFinish();
+        double elapsed = (System.nanoTime() - start) / 1e9;
+
+        long claims = 0, verificationNanos = 0;
+        for (Dealer dealer : dealers) {
+            claims += dealer.claimsChecked();
+            verificationNanos += dealer.verificationNanos();
+        }
+        System.out.printf("%d tables x %d players, %s threads, %.1f s%n",
+                tables, playersPerTable, config.executionMode, elapsed);
+        System.out.printf("claims/s: %.0f, mean verdict: %.1f us, peak platform threads: %d%n",
+                claims / elapsed, claims == 0 ? 0.0 : verificationNanos / 1e3 / claims, peakThreads);
+    }
+}
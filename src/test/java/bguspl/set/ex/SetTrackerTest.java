@@ -0,0 +1,71 @@
+package bguspl.set.ex;
+
+import bguspl.set.Config;
+import bguspl.set.UtilImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SetTrackerTest {
+
+    SetTracker tracker;
+    private UtilImpl util;
+    private List<Integer> cards;
+
+    @BeforeEach
+    void setUp() {
+
+        Properties properties = new Properties();
+        properties.put("FeatureSize", "3");
+        properties.put("FeatureCount", "4");
+        Config config = new Config(new TableTest.MockLogger(), properties);
+        util = new UtilImpl(config);
+        tracker = new SetTracker(util, config.deckSize);
+        cards = IntStream.range(0, config.deckSize).boxed().collect(Collectors.toList());
+    }
+
+    @Test
+    void setCount_FullDeck() {
+
+        assertEquals(util.findSets(cards, Integer.MAX_VALUE).size(), tracker.setCount());
+        assertEquals(40, tracker.setCount(0));
+    }
+
+    @Test
+    void remove_MatchesFindSets() {
+
+        Collections.shuffle(cards, new Random(3));
+        List<Integer> left = new ArrayList<>(cards);
+        for (int card : cards) {
+            tracker.remove(card);
+            left.remove((Integer) card);
+            assertEquals(util.findSets(left, Integer.MAX_VALUE).size(), tracker.setCount());
+            assertEquals(0, tracker.setCount(card));
+        }
+        assertFalse(tracker.hasSet());
+    }
+
+    @Test
+    void add_RestoresSets() {
+
+        for (int card = 0; card < 10; card++)
+            tracker.remove(card);
+        for (int card = 0; card < 10; card++)
+            tracker.add(card);
+
+        assertTrue(tracker.hasSet());
+        assertEquals(util.findSets(cards, Integer.MAX_VALUE).size(), tracker.setCount());
+        assertEquals(40, tracker.setCount(5));
+    }
+}
@@ -0,0 +1,82 @@
+package bguspl.set.ex;
+
+import bguspl.set.Config;
+import bguspl.set.Env;
+import bguspl.set.UtilImpl;
+
+import java.util.Properties;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Measures the rate of player slot reads while the dealer keeps replacing cards, for 2 to 64 player threads, with the
+ * table's striped locks compared to the same table with a single lock (striping disabled), both with optimistic reads.
+ * Run with: mvn test-compile && java -cp target/classes:target/test-classes bguspl.set.ex.TableContentionBenchmark
+ */
+public class TableContentionBenchmark {
+
+    private static final long MEASURE_MILLIS = 1000;
+
+    public static void main(String[] args) throws InterruptedException {
+        System.out.printf("%8s %18s %18s %18s %18s%n",
+                "players", "striped reads/s", "striped writes/s", "1-lock reads/s", "1-lock writes/s");
+        for (int players = 2; players <= 64; players *= 2) {
+            long[] striped = run(players, Table.MAX_SLOT_LOCKS);
+            long[] single = run(players, 1);
+            System.out.printf("%8d %18d %18d %18d %18d%n", players, striped[0], striped[1], single[0], single[1]);
+        }
+    }
+
+    /**
+     * @param slotLocks - the maximal number of locks guarding the slots of the table.
+     * @return - the reads and the card replacements per second.
+     */
+    private static long[] run(int players, int slotLocks) throws InterruptedException {
+        Properties properties = new Properties();
+        properties.put("ComputerPlayers", Integer.toString(players));
+        properties.put("HumanPlayers", "0");
+        properties.put("Rows", "4");
+        properties.put("Columns", "5");
+        properties.put("TableDelaySeconds", "0");
+        properties.put("PlayerKeys1", "");
+        properties.put("PlayerKeys2", "");
+        properties.put("LogLevel", "OFF");
+        TableTest.MockLogger logger = new TableTest.MockLogger();
+        Config config = new Config(logger, properties);
+        Env env = new Env(logger, config, new TableTest.MockUserInterface(), new UtilImpl(config));
+        Table table = new Table(env, slotLocks);
+        for (int slot = 0; slot < config.tableSize; slot++)
+            table.placeCard(slot, slot);
+
+        LongAdder reads = new LongAdder();
+        long[] writes = {0};
+        long end = System.currentTimeMillis() + MEASURE_MILLIS;
+        Thread[] threads = new Thread[players + 1];
+        for (int i = 0; i < players; i++)
+            threads[i] = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                long count = 0;
+                while ((++count & 1023) != 0 || System.currentTimeMillis() < end)
+                    table.cardAt(random.nextInt(config.tableSize));
+                reads.add(count);
+            });
+        threads[players] = new Thread(() -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            int card = 0;
+            while (System.currentTimeMillis() < end) {
+                do {
+                    card = (card + 1) % config.deckSize;
+                } while (table.slotOf(card) != Table.NONE);
+                int slot = random.nextInt(config.tableSize);
+                table.removeCard(slot);
+                table.placeCard(card, slot);
+                writes[0]++;
+            }
+        });
+        for (Thread thread : threads)
+            thread.start();
+        for (Thread thread : threads)
+            thread.join();
+        return new long[]{reads.sum() * 1000 / MEASURE_MILLIS, writes[0] * 1000 / MEASURE_MILLIS};
+    }
+}
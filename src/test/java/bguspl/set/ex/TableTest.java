@@ -4,20 +4,30 @@ import bguspl.set.Config;
 import bguspl.set.Env;
 import bguspl.set.UserInterface;
 import bguspl.set.Util;
+import bguspl.set.UtilImpl;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class TableTest {
 
     Table table;
-    private Integer[] slotToCard;
-    private Integer[] cardToSlot;
+    private Config config;
+    private int[] slotToCard;
+    private int[] cardToSlot;
 
     @BeforeEach
     void setUp() {
@@ -31,35 +41,36 @@ class TableTest {
         properties.put("PlayerKeys1", "81,87,69,82");
         properties.put("PlayerKeys2", "85,73,79,80");
         MockLogger logger = new MockLogger();
-        Config config = new Config(logger, properties);
-        slotToCard = new Integer[config.tableSize];
-        cardToSlot = new Integer[config.deckSize];
+        config = new Config(logger, properties);
+        slotToCard = new int[config.tableSize];
+        cardToSlot = new int[config.deckSize];
+        Arrays.fill(slotToCard, Table.NONE);
+        Arrays.fill(cardToSlot, Table.NONE);
 
         Env env = new Env(logger, config, new MockUserInterface(), new MockUtil());
         table = new Table(env, slotToCard, cardToSlot);
     }
 
     private int fillSomeSlots() {
-        slotToCard[1] = 3;
-        slotToCard[2] = 5;
-        cardToSlot[3] = 1;
-        cardToSlot[5] = 2;
+        table.placeCard(3, 1);
+        table.placeCard(5, 2);
 
         return 2;
     }
 
     private void fillAllSlots() {
         for (int i = 0; i < slotToCard.length; ++i) {
-            slotToCard[i] = i;
-            cardToSlot[i] = i;
+            table.placeCard(i, i);
         }
     }
 
     private void placeSomeCardsAndAssert() throws InterruptedException {
         table.placeCard(8, 2);
 
-        assertEquals(8, (int) slotToCard[2]);
-        assertEquals(2, (int) cardToSlot[8]);
+        assertEquals(8, slotToCard[2]);
+        assertEquals(2, cardToSlot[8]);
+        assertEquals(8, table.cardAt(2));
+        assertEquals(2, table.slotOf(8));
     }
 
     @Test
@@ -95,6 +106,189 @@ class TableTest {
         placeSomeCardsAndAssert();
     }
 
+    @Test
+    void nextFreeSlot_SkipsFilledSlots() {
+
+        fillSomeSlots();
+        assertEquals(0, table.nextFreeSlot(0));
+        assertEquals(3, table.nextFreeSlot(1));
+
+        fillAllSlots();
+        assertEquals(Table.NONE, table.nextFreeSlot(0));
+
+        table.removeCard(2);
+        assertEquals(slotToCard.length - 1, table.countCards());
+        assertEquals(2, table.nextFreeSlot(0));
+    }
+
+    @Test
+    void placeCards_AndRemoveCards() {
+
+        table.placeCards(new int[]{7, 9, 11}, new int[]{0, 2, 3});
+        assertEquals(3, table.countCards());
+        assertEquals(9, table.cardAt(2));
+        assertEquals(3, table.slotOf(11));
+
+        table.removeCards(new int[]{0, 1, 3});
+        assertEquals(1, table.countCards());
+        assertEquals(Table.NONE, table.slotOf(7));
+    }
+
+    @Test
+    void snapshot_ClaimsOnChangedSlotsAreStale() {
+
+        table.placeCards(new int[]{7, 9, 11}, new int[]{0, 1, 2});
+        Claim claim = new Claim(0, new int[]{0, 1}, table.snapshot());
+        assertArrayEquals(new int[]{7, 9}, claim.cards());
+        assertTrue(table.isCurrent(claim));
+
+        table.removeCard(2);
+        assertTrue(table.isCurrent(claim));
+
+        table.removeCard(1);
+        table.placeCard(9, 1);
+        assertFalse(table.isCurrent(claim));
+        assertEquals(Table.NONE, table.snapshot().cardAt(2));
+    }
+
+    @Test
+    void snapshot_SlotChangedBeforeTheTokensAreReadIsStale() {
+
+        table.placeCards(new int[]{7, 9, 11}, new int[]{0, 1, 2});
+        Table.Snapshot seen = table.snapshot();
+
+        // the dealer replaces the card in slot 1 after the player took the snapshot but before it read its tokens
+        table.removeCard(1);
+        table.placeCard(20, 1);
+        Claim claim = new Claim(0, new int[]{0, 1, 2}, seen);
+
+        assertEquals(9, claim.card(1));
+        assertFalse(table.isCurrent(claim));
+
+        // read the other way around, the newer snapshot would pass off card 20 as one the player saw
+        Claim reversed = new Claim(0, new int[]{0, 1, 2}, table.snapshot());
+        assertEquals(20, reversed.card(1));
+        assertTrue(table.isCurrent(reversed));
+    }
+
+    @Test
+    void animator_DelayedCardsAndTokensAreShownInOrder() throws InterruptedException {
+
+        Properties properties = new Properties();
+        properties.put("Rows", "2");
+        properties.put("Columns", "2");
+        properties.put("TableDelaySeconds", "0.05");
+        properties.put("PlayerKeys1", "81,87,69,82");
+        properties.put("PlayerKeys2", "85,73,79,80");
+        config = new Config(new MockLogger(), properties);
+        List<String> shown = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(1);
+        UserInterface ui = new MockUserInterface() {
+            @Override
+            public void placeCard(int card, int slot) {
+                shown.add("card " + card);
+            }
+
+            @Override
+            public void removeCard(int slot) {
+                shown.add("no card " + slot);
+            }
+
+            @Override
+            public void placeToken(int player, int slot) {
+                shown.add("token " + slot);
+            }
+
+            @Override
+            public void removeTokens() {
+                shown.add("no tokens");
+                done.countDown();
+            }
+        };
+        Env env = new Env(new MockLogger(), config, ui, new MockUtil());
+        table = new Table(env);
+
+        long start = System.nanoTime();
+        table.placeCard(7, 0);
+        table.placeToken(0, 0);
+        table.removeCard(0);
+        table.removeAllTokens();
+        // the table changed at once, the ui did not yet
+        assertEquals(Table.NONE, table.cardAt(0));
+        assertTrue(shown.isEmpty());
+        table.shutdown();
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(2 * config.tableDelayMillis));
+        assertEquals(Arrays.asList("card 7", "token 0", "no card 0", "no tokens"), shown);
+    }
+
+    @Test
+    void setIndex_TracksPlacedAndRemovedCards() {
+
+        Env env = new Env(new MockLogger(), config, new MockUserInterface(), new UtilImpl(config));
+        table = new Table(env, slotToCard, cardToSlot);
+
+        // cards 0, 1, 2 (features 0000, 0001, 0002) form a set, card 4 (0011) completes none of them on the table
+        table.placeCard(0, 0);
+        table.placeCard(1, 1);
+        table.placeCard(4, 3);
+        assertFalse(table.hasSet());
+
+        table.placeCard(2, 2);
+        assertEquals(1, table.setCount());
+        assertEquals(1, table.setCountAt(0));
+        assertEquals(0, table.setCountAt(3));
+        assertArrayEquals(new int[]{0, 1, 2}, table.setsAt(1).get(0));
+
+        table.removeCard(1);
+        assertFalse(table.hasSet());
+        assertEquals(0, table.setCountAt(2));
+    }
+
+    @Test
+    void setIndex_CountsPrefilledCards() {
+
+        // cards 0, 1, 2 form a set and card 4 completes none of them
+        int[] cards = {0, 1, 2, 4};
+        for (int slot = 0; slot < cards.length; slot++) {
+            slotToCard[slot] = cards[slot];
+            cardToSlot[cards[slot]] = slot;
+        }
+        Env env = new Env(new MockLogger(), config, new MockUserInterface(), new UtilImpl(config));
+        table = new Table(env, slotToCard, cardToSlot);
+
+        assertTrue(table.hasSet());
+        assertEquals(1, table.setCount());
+        assertEquals(1, table.setCountAt(2));
+        assertEquals(0, table.setCountAt(3));
+
+        table.removeCard(0);
+        assertEquals(0, table.setCount());
+        for (int slot = 0; slot < cards.length; slot++)
+            assertEquals(0, table.setCountAt(slot));
+    }
+
+    @Test
+    void tokens_PlaceRemoveAndCollect() {
+
+        table.placeToken(0, 1);
+        table.placeToken(0, 3);
+        table.placeToken(1, 3);
+        table.placeToken(1, 2);
+        assertEquals(2, table.tokenCount(0));
+        assertArrayEquals(new int[]{1, 3}, table.tokenSlots(0));
+        assertTrue(table.cardHasChosen(1, 2));
+
+        assertTrue(table.removeToken(1, 2));
+        assertFalse(table.removeToken(1, 2));
+
+        // player 0 collects slots 1 and 3, so player 1 loses its token on slot 3 as well
+        table.playerGotsetToRemove(0);
+        assertEquals(0, table.tokenCount(1));
+        assertFalse(table.cardHasChosen(1, 3));
+    }
+
     static class MockUserInterface implements UserInterface {
         @Override
         public void dispose() {}